@@ -0,0 +1,56 @@
+package me.senseiwells.arucas.discord.fixtures;
+
+import me.senseiwells.arucas.api.docs.ClassDoc;
+import me.senseiwells.arucas.api.docs.FunctionDoc;
+import me.senseiwells.arucas.builtin.FunctionDef;
+import me.senseiwells.arucas.classes.CreatableDefinition;
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.utils.ArucasFunction;
+import me.senseiwells.arucas.utils.Arguments;
+import me.senseiwells.arucas.utils.BuiltInFunction;
+import me.senseiwells.arucas.utils.Util;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static me.senseiwells.arucas.utils.Util.Types.FUNCTION;
+
+@ClassDoc(
+	name = CaptureDef.CAPTURE,
+	desc = "This class is only available to fixture scripts, it hands a script function back to Java",
+	importPath = "fixtures.Capture",
+	language = Util.Language.Java
+)
+public class CaptureDef extends CreatableDefinition<ArucasFunction> {
+	public static final String CAPTURE = "Capture";
+
+	private final Consumer<ArucasFunction> captured;
+
+	public CaptureDef(Interpreter interpreter, Consumer<ArucasFunction> captured) {
+		super(CAPTURE, interpreter);
+		this.captured = captured;
+	}
+
+	@Override
+	public List<BuiltInFunction> defineStaticMethods() {
+		return List.of(
+			BuiltInFunction.of("function", 1, this::function)
+		);
+	}
+
+	@FunctionDoc(
+		isStatic = true,
+		name = "function",
+		desc = "This passes the function to the Java code that ran the script",
+		params = {FUNCTION, "function", "the function to capture"},
+		examples = """
+		import Capture from fixtures.Capture;
+
+		Capture.function(fun(event) { });
+		"""
+	)
+	public Void function(Arguments arguments) {
+		this.captured.accept(arguments.nextPrimitive(FunctionDef.class));
+		return null;
+	}
+}
@@ -0,0 +1,191 @@
+package me.senseiwells.arucas.discord.fixtures;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import me.senseiwells.arucas.api.ArucasAPI;
+import me.senseiwells.arucas.builtin.FunctionDef;
+import me.senseiwells.arucas.builtin.ListDef;
+import me.senseiwells.arucas.builtin.MapDef;
+import me.senseiwells.arucas.classes.ClassInstance;
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.DiscordAPI;
+import me.senseiwells.arucas.discord.DiscordUtils.LocatedFunction;
+import me.senseiwells.arucas.utils.ArucasFunction;
+import me.senseiwells.arucas.utils.BuiltInFunction;
+import me.senseiwells.arucas.utils.impl.ArucasList;
+import me.senseiwells.arucas.utils.impl.ArucasMap;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.ChannelType;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.interactions.InteractionType;
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.SlashCommandInteraction;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// A small offline server, one user sending messages and slash commands in one text channel
+public final class Fixtures {
+	public static final long SERVER_ID = 100000000000000001L;
+	public static final long CHANNEL_ID = 100000000000000002L;
+	public static final long USER_ID = 100000000000000003L;
+	public static final long MESSAGE_ID = 100000000000000004L;
+
+	private Fixtures() { }
+
+	public static Interpreter createInterpreter() {
+		return createInterpreter("", "fixtures", builder -> { });
+	}
+
+	public static Interpreter createInterpreter(String content, String name, Consumer<ArucasAPI.Builder> extra) {
+		ArucasAPI.Builder builder = new ArucasAPI.Builder();
+		builder.addDefault();
+		DiscordAPI.addDiscordAPI(builder);
+		extra.accept(builder);
+		return Interpreter.of(content, name, builder.build());
+	}
+
+	public static JDA createJda() {
+		return Stubs.stub(JDA.class, Map.of(
+			"getShardInfo", new JDA.ShardInfo(0, 1),
+			"getStatus", JDA.Status.CONNECTED,
+			"getGatewayPing", 40L
+		));
+	}
+
+	public static User createUser(JDA jda) {
+		return Stubs.stub(User.class, Map.of(
+			"getIdLong", USER_ID,
+			"getName", "Sensei",
+			"getDiscriminator", "0001",
+			"getJDA", jda
+		));
+	}
+
+	public static Guild createServer(JDA jda, User owner) {
+		Map<String, Object> answers = new HashMap<>();
+		answers.put("getIdLong", SERVER_ID);
+		answers.put("getName", "Arucas");
+		answers.put("getOwnerIdLong", owner.getIdLong());
+		answers.put("getMemberCount", 1);
+		answers.put("getJDA", jda);
+		Guild guild = Stubs.stub(Guild.class, answers);
+		answers.put("getMember", Stubs.stub(Member.class, Map.of(
+			"getIdLong", owner.getIdLong(),
+			"getUser", owner,
+			"getGuild", guild,
+			"isOwner", true,
+			"getJDA", jda
+		)));
+		return guild;
+	}
+
+	public static TextChannel createChannel(JDA jda, Guild guild) {
+		// Events reach the channel through MessageChannelUnion so the stub implements both
+		return Stubs.stub(TextChannel.class, Map.of(
+			"getIdLong", CHANNEL_ID,
+			"getName", "general",
+			"getType", ChannelType.TEXT,
+			"getGuild", guild,
+			"getJDA", jda
+		), MessageChannelUnion.class);
+	}
+
+	public static Message createMessage(JDA jda, TextChannel channel, User author, String content) {
+		return Stubs.stub(Message.class, Map.of(
+			"getIdLong", MESSAGE_ID,
+			"getContentRaw", content,
+			"getContentDisplay", content,
+			"getAuthor", author,
+			"getChannel", channel,
+			"getGuild", channel.getGuild(),
+			"isFromGuild", true,
+			"getJDA", jda
+		));
+	}
+
+	public static MessageReceivedEvent createMessageEvent(JDA jda, Message message) {
+		return new MessageReceivedEvent(jda, 0, message);
+	}
+
+	public static SlashCommandInteractionEvent createSlashEvent(JDA jda, TextChannel channel, User user, String name, List<OptionMapping> options) {
+		SlashCommandInteraction interaction = Stubs.stub(SlashCommandInteraction.class, Map.of(
+			"getName", name,
+			"getOptions", options,
+			"getType", InteractionType.COMMAND,
+			"getCommandType", Command.Type.SLASH,
+			"getChannel", channel,
+			"getGuild", channel.getGuild(),
+			"getUser", user,
+			"getJDA", jda
+		));
+		return new SlashCommandInteractionEvent(jda, 0, interaction);
+	}
+
+	public static OptionMapping createOption(String name, OptionType type, Object value) {
+		DataObject data = DataObject.empty()
+			.put("name", name)
+			.put("type", type.getKey())
+			.put("value", value);
+		return new OptionMapping(data, new TLongObjectHashMap<>(), null, null);
+	}
+
+	public static ArucasFunction createFunction(String name, int parameters) {
+		return BuiltInFunction.of(name, parameters, arguments -> null);
+	}
+
+	// Unlike createFunction the body runs in the interpreter, the source must be a function literal
+	public static LocatedFunction createScriptFunction(String source) {
+		AtomicReference<ArucasFunction> function = new AtomicReference<>();
+		String content = "import Capture from fixtures.Capture;\nCapture.function(" + source + ");";
+		Interpreter interpreter = createInterpreter(content, "fixtures", builder -> {
+			builder.addClassDefinitions("fixtures.Capture", i -> new CaptureDef(i, function::set));
+		});
+		interpreter.executeBlocking();
+		if (function.get() == null) {
+			throw new IllegalStateException("Script didn't capture a function");
+		}
+		return new LocatedFunction(interpreter, function.get());
+	}
+
+	// Keys and values are converted as a script would see them, nested maps and lists included
+	public static ArucasMap createMap(Interpreter interpreter, Object... entries) {
+		ArucasMap map = new ArucasMap();
+		for (int i = 0; i < entries.length; i += 2) {
+			map.put(interpreter, interpreter.convertValue(entries[i]), toInstance(interpreter, entries[i + 1]));
+		}
+		return map;
+	}
+
+	public static ClassInstance toInstance(Interpreter interpreter, Object value) {
+		if (value instanceof ClassInstance instance) {
+			return instance;
+		}
+		if (value instanceof ArucasMap map) {
+			return interpreter.create(MapDef.class, map);
+		}
+		if (value instanceof ArucasFunction function) {
+			return interpreter.create(FunctionDef.class, function);
+		}
+		if (value instanceof List<?> values) {
+			ArucasList list = new ArucasList();
+			for (Object element : values) {
+				list.add(toInstance(interpreter, element));
+			}
+			return interpreter.create(ListDef.class, list);
+		}
+		return interpreter.convertValue(value);
+	}
+}
@@ -0,0 +1,131 @@
+package me.senseiwells.arucas.discord.fixtures;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Proxies for JDA interfaces, methods are answered by name, default methods run as normal,
+// and anything else returns a default value or a nested stub
+public final class Stubs {
+	// Lets a harness answer methods that no stub has an answer for, such as every method returning a RestAction
+	private static volatile Fallback fallback;
+
+	private Stubs() { }
+
+	public static void setFallback(Fallback fallback) {
+		Stubs.fallback = fallback;
+	}
+
+	public static <T> T stub(Class<T> type) {
+		return stub(type, Map.of());
+	}
+
+	public static <T> T stub(Class<T> type, Map<String, Object> answers, Class<?>... extra) {
+		return stub(type, answers, null, extra);
+	}
+
+	public static <T> T stub(Class<T> type, Map<String, Object> answers, Fallback own, Class<?>... extra) {
+		Class<?>[] interfaces = new Class<?>[extra.length + 1];
+		interfaces[0] = type;
+		System.arraycopy(extra, 0, interfaces, 1, extra.length);
+		Object proxy = Proxy.newProxyInstance(type.getClassLoader(), interfaces, new Handler(type, answers, own));
+		return type.cast(proxy);
+	}
+
+	private static final class Handler implements InvocationHandler {
+		private final Class<?> type;
+		private final Map<String, Object> answers;
+		private final Fallback own;
+		// Nested stubs are reused so repeated calls return the same object, as JDA's would
+		private final Map<Method, Object> nested;
+
+		private Handler(Class<?> type, Map<String, Object> answers, Fallback own) {
+			this.type = type;
+			this.answers = answers;
+			this.own = own;
+			this.nested = new ConcurrentHashMap<>();
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (method.getDeclaringClass() == Object.class) {
+				return switch (name) {
+					case "equals" -> proxy == args[0];
+					case "hashCode" -> System.identityHashCode(proxy);
+					default -> "Stub" + this.type.getSimpleName();
+				};
+			}
+			if (this.answers.containsKey(name)) {
+				Object answer = this.answers.get(name);
+				return answer instanceof Answer dynamic ? dynamic.answer(proxy, args) : answer;
+			}
+			// Checked before default methods, JDA's default methods often build its internal implementations
+			for (Fallback fallback : new Fallback[] { this.own, Stubs.fallback }) {
+				Object answer = fallback == null ? null : fallback.answer(proxy, method);
+				if (answer != null) {
+					return answer;
+				}
+			}
+			if (method.isDefault()) {
+				return InvocationHandler.invokeDefault(proxy, method, args);
+			}
+			Class<?> returnType = method.getReturnType();
+			if (returnType.isInterface() && !Collection.class.isAssignableFrom(returnType) && !Map.class.isAssignableFrom(returnType)) {
+				return this.nested.computeIfAbsent(method, m -> stub(returnType));
+			}
+			return getDefault(returnType);
+		}
+	}
+
+	public interface Answer {
+		Object answer(Object proxy, Object[] args) throws Throwable;
+	}
+
+	public interface Fallback {
+		// Returns null to carry on with the usual defaults
+		Object answer(Object proxy, Method method);
+	}
+
+	private static Object getDefault(Class<?> type) {
+		if (type == boolean.class) {
+			return false;
+		}
+		if (type == long.class) {
+			return 0L;
+		}
+		if (type == int.class) {
+			return 0;
+		}
+		if (type == double.class) {
+			return 0.0;
+		}
+		if (type == float.class) {
+			return 0.0F;
+		}
+		if (type == short.class) {
+			return (short) 0;
+		}
+		if (type == byte.class) {
+			return (byte) 0;
+		}
+		if (type == char.class) {
+			return '\0';
+		}
+		if (type == Set.class) {
+			return Set.of();
+		}
+		if (type == Map.class) {
+			return Map.of();
+		}
+		if (Collection.class.isAssignableFrom(type)) {
+			return List.of();
+		}
+		return null;
+	}
+}
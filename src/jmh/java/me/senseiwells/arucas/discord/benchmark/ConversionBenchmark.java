@@ -0,0 +1,102 @@
+package me.senseiwells.arucas.discord.benchmark;
+
+import me.senseiwells.arucas.classes.ClassInstance;
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.fixtures.Fixtures;
+import me.senseiwells.arucas.discord.impl.DiscordBot;
+import me.senseiwells.arucas.discord.impl.DiscordEvent;
+import me.senseiwells.arucas.discord.impl.EmbedTemplate;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// One benchmark for each Discord class, DiscordAttachment is left out as
+// Message.Attachment is a concrete JDA class that can't be stubbed
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+	private Interpreter interpreter;
+	private DiscordBot bot;
+	private TextChannel channel;
+	private MessageReceivedEvent event;
+	private DiscordEvent discordEvent;
+	private Message message;
+	private Guild server;
+	private User user;
+	private EmbedTemplate template;
+
+	@Setup
+	public void setup() {
+		this.interpreter = Fixtures.createInterpreter();
+		JDA jda = Fixtures.createJda();
+		this.bot = new DiscordBot(jda, this.interpreter);
+		this.user = Fixtures.createUser(jda);
+		this.server = Fixtures.createServer(jda, this.user);
+		this.channel = Fixtures.createChannel(jda, this.server);
+		this.message = Fixtures.createMessage(jda, this.channel, this.user, "Hello!");
+		this.event = Fixtures.createMessageEvent(jda, this.message);
+		this.discordEvent = new DiscordEvent(this.event);
+		this.template = new EmbedTemplate("Welcome {name}!", "You are member number {count}", 0xFFFFFF, List.of(), null);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.bot.shutdown();
+	}
+
+	@Benchmark
+	public ClassInstance bot() {
+		return this.interpreter.convertValue(this.bot);
+	}
+
+	@Benchmark
+	public ClassInstance channel() {
+		return this.interpreter.convertValue(this.channel);
+	}
+
+	@Benchmark
+	public ClassInstance event() {
+		return this.interpreter.convertValue(this.event);
+	}
+
+	@Benchmark
+	public ClassInstance sharedEvent() {
+		return this.interpreter.convertValue(this.discordEvent);
+	}
+
+	@Benchmark
+	public ClassInstance message() {
+		return this.interpreter.convertValue(this.message);
+	}
+
+	@Benchmark
+	public ClassInstance server() {
+		return this.interpreter.convertValue(this.server);
+	}
+
+	@Benchmark
+	public ClassInstance user() {
+		return this.interpreter.convertValue(this.user);
+	}
+
+	@Benchmark
+	public ClassInstance embedTemplate() {
+		return this.interpreter.convertValue(this.template);
+	}
+
+	@Benchmark
+	public ClassInstance metrics() {
+		return this.interpreter.convertValue(this.bot.getMetrics());
+	}
+}
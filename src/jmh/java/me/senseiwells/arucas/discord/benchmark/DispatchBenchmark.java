@@ -0,0 +1,90 @@
+package me.senseiwells.arucas.discord.benchmark;
+
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.fixtures.Fixtures;
+import me.senseiwells.arucas.discord.impl.DiscordBot;
+import me.senseiwells.arucas.discord.impl.HandlerExecutor;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.user.update.UserUpdateNameEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Measures the cost of onEvent on the gateway thread, handlers are dropped rather than run
+// so the numbers don't depend on how fast the interpreter can execute scripts
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+	@Param({"0", "1", "8"})
+	public int listeners;
+
+	private DiscordBot bot;
+	private MessageReceivedEvent messageEvent;
+	private UserUpdateNameEvent unhandledEvent;
+	private SlashCommandInteractionEvent commandEvent;
+
+	@Setup
+	public void setup() {
+		Interpreter interpreter = Fixtures.createInterpreter();
+		JDA jda = Fixtures.createJda();
+		User user = Fixtures.createUser(jda);
+		Guild server = Fixtures.createServer(jda, user);
+		TextChannel channel = Fixtures.createChannel(jda, server);
+
+		this.bot = new DiscordBot(jda, interpreter);
+		this.bot.getHandlers().configure(1, 1, HandlerExecutor.OverflowPolicy.DROP_NEWEST);
+		this.bot.getMessageCache().configure(0, 0);
+		// Batched commands are registered without a request
+		this.bot.setCommandSync(true);
+		for (int i = 0; i < this.listeners; i++) {
+			this.bot.registerEvent(interpreter, Fixtures.createFunction("listener", 1), "MessageReceivedEvent");
+		}
+		this.bot.addCommand(interpreter, Fixtures.createMap(interpreter,
+			"name", "roll",
+			"description", "Rolls a dice",
+			"command", Fixtures.createFunction("roll", 2),
+			"options", List.of(Fixtures.createMap(interpreter,
+				"name", "sides",
+				"description", "The number of sides",
+				"type", "integer"
+			))
+		));
+
+		this.messageEvent = Fixtures.createMessageEvent(jda, Fixtures.createMessage(jda, channel, user, "Hello!"));
+		this.unhandledEvent = new UserUpdateNameEvent(jda, 0, user, "Old");
+		this.commandEvent = Fixtures.createSlashEvent(jda, channel, user, "roll", List.of(
+			Fixtures.createOption("sides", OptionType.INTEGER, 6)
+		));
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.bot.shutdown();
+	}
+
+	@Benchmark
+	public void messageEvent() {
+		this.bot.onEvent(this.messageEvent);
+	}
+
+	@Benchmark
+	public void unhandledEvent() {
+		this.bot.onEvent(this.unhandledEvent);
+	}
+
+	@Benchmark
+	public void commandEvent() {
+		this.bot.onEvent(this.commandEvent);
+	}
+}
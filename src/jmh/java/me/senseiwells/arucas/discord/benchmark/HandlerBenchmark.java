@@ -0,0 +1,50 @@
+package me.senseiwells.arucas.discord.benchmark;
+
+import me.senseiwells.arucas.classes.ClassInstance;
+import me.senseiwells.arucas.discord.DiscordUtils.LocatedFunction;
+import me.senseiwells.arucas.discord.fixtures.Fixtures;
+import me.senseiwells.arucas.discord.impl.DiscordEvent;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Runs a script handler the way a handler worker does, each call branches the interpreter, the score is events per second
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerBenchmark {
+	private LocatedFunction handler;
+	private DiscordEvent event;
+
+	@Setup
+	public void setup() {
+		this.handler = Fixtures.createScriptFunction("fun(event) { count = 0; for (i : range(10)) { count = count + i; } return count; }");
+		JDA jda = Fixtures.createJda();
+		User user = Fixtures.createUser(jda);
+		TextChannel channel = Fixtures.createChannel(jda, Fixtures.createServer(jda, user));
+		this.event = new DiscordEvent(Fixtures.createMessageEvent(jda, Fixtures.createMessage(jda, channel, user, "Hello!")));
+	}
+
+	@Benchmark
+	public ClassInstance invoke() {
+		return this.run();
+	}
+
+	// Handler workers run concurrently, branching the same interpreter from several threads
+	@Benchmark
+	@Threads(4)
+	public ClassInstance invokeConcurrently() {
+		return this.run();
+	}
+
+	private ClassInstance run() {
+		return this.handler.invoke(branch -> List.of(branch.convertValue(this.event)));
+	}
+}
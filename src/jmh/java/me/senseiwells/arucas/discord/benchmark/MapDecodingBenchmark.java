@@ -0,0 +1,116 @@
+package me.senseiwells.arucas.discord.benchmark;
+
+import me.senseiwells.arucas.builtin.BooleanDef;
+import me.senseiwells.arucas.builtin.ListDef;
+import me.senseiwells.arucas.builtin.MapDef;
+import me.senseiwells.arucas.builtin.NumberDef;
+import me.senseiwells.arucas.builtin.StringDef;
+import me.senseiwells.arucas.classes.ClassInstance;
+import me.senseiwells.arucas.classes.PrimitiveDefinition;
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.fixtures.Fixtures;
+import me.senseiwells.arucas.discord.impl.MapSchema;
+import me.senseiwells.arucas.utils.impl.ArucasList;
+import me.senseiwells.arucas.utils.impl.ArucasMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Compares the old lookup, which created a String key for every read, against MapSchema's cached keys,
+// run with the gc profiler and compare gc.alloc.rate.norm, the bytes allocated per decoded embed
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapDecodingBenchmark {
+	private static final MapSchema EMBED = new MapSchema("Embed");
+	private static final MapSchema.Field<String> EMBED_TITLE = EMBED.optional("title", StringDef.class);
+	private static final MapSchema.Field<String> EMBED_DESCRIPTION = EMBED.optional("description", StringDef.class);
+	private static final MapSchema.Field<Double> EMBED_COLOUR = EMBED.optional("colour", NumberDef.class);
+	private static final MapSchema.Field<Double> EMBED_COLOR = EMBED.optional("color", NumberDef.class);
+	private static final MapSchema.Field<ArucasList> EMBED_FIELDS = EMBED.optional("fields", ListDef.class);
+
+	private static final MapSchema FIELD = new MapSchema("Embed field");
+	private static final MapSchema.Field<String> FIELD_NAME = FIELD.required("name", StringDef.class);
+	private static final MapSchema.Field<String> FIELD_VALUE = FIELD.required("value", StringDef.class);
+	private static final MapSchema.Field<Boolean> FIELD_INLINE = FIELD.optional("inline", BooleanDef.class);
+
+	private Interpreter interpreter;
+	private Interpreter other;
+	private ArucasMap embedMap;
+	private ArucasMap otherEmbedMap;
+
+	@Setup
+	public void setup() {
+		this.interpreter = Fixtures.createInterpreter();
+		this.other = Fixtures.createInterpreter();
+		this.embedMap = createEmbed(this.interpreter);
+		this.otherEmbedMap = createEmbed(this.other);
+	}
+
+	@Benchmark
+	public void perFieldLookup(Blackhole blackhole) {
+		decodePerField(this.interpreter, this.embedMap, blackhole);
+	}
+
+	@Benchmark
+	public void schema(Blackhole blackhole) {
+		decodeSchema(this.interpreter, this.embedMap, blackhole);
+	}
+
+	// Static schemas are shared, two interpreters decoding in turn must not evict each other's keys
+	@Benchmark
+	public void schemaTwoInterpreters(Blackhole blackhole) {
+		decodeSchema(this.interpreter, this.embedMap, blackhole);
+		decodeSchema(this.other, this.otherEmbedMap, blackhole);
+	}
+
+	private static void decodePerField(Interpreter interpreter, ArucasMap map, Blackhole blackhole) {
+		blackhole.consume(getFieldInMap(map, interpreter, "title", StringDef.class));
+		blackhole.consume(getFieldInMap(map, interpreter, "description", StringDef.class));
+		Double colour = getFieldInMap(map, interpreter, "colour", NumberDef.class);
+		blackhole.consume(colour == null ? getFieldInMap(map, interpreter, "color", NumberDef.class) : colour);
+		for (ClassInstance instance : getFieldInMap(map, interpreter, "fields", ListDef.class)) {
+			ArucasMap field = instance.getPrimitive(MapDef.class);
+			blackhole.consume(getFieldInMap(field, interpreter, "name", StringDef.class));
+			blackhole.consume(getFieldInMap(field, interpreter, "value", StringDef.class));
+			blackhole.consume(getFieldInMap(field, interpreter, "inline", BooleanDef.class));
+		}
+	}
+
+	private static void decodeSchema(Interpreter interpreter, ArucasMap map, Blackhole blackhole) {
+		MapSchema.Decoded embed = EMBED.decode(interpreter, map);
+		blackhole.consume(embed.get(EMBED_TITLE));
+		blackhole.consume(embed.get(EMBED_DESCRIPTION));
+		blackhole.consume(embed.get(EMBED_COLOUR, embed.get(EMBED_COLOR)));
+		for (ClassInstance instance : embed.get(EMBED_FIELDS)) {
+			MapSchema.Decoded field = FIELD.decode(interpreter, instance.getPrimitive(MapDef.class));
+			blackhole.consume(field.get(FIELD_NAME));
+			blackhole.consume(field.get(FIELD_VALUE));
+			blackhole.consume(field.get(FIELD_INLINE));
+		}
+	}
+
+	// How DiscordUtils read maps before MapSchema, a new key instance for every lookup
+	private static <T extends PrimitiveDefinition<V>, V> V getFieldInMap(ArucasMap map, Interpreter interpreter, String field, Class<T> type) {
+		ClassInstance instance = map.get(interpreter, interpreter.create(StringDef.class, field));
+		return instance == null ? null : instance.getPrimitive(type);
+	}
+
+	private static ArucasMap createEmbed(Interpreter interpreter) {
+		return Fixtures.createMap(interpreter,
+			"title", "Server statistics",
+			"description", "Statistics for the last 24 hours",
+			"colour", 0x5865F2,
+			"fields", List.of(
+				Fixtures.createMap(interpreter, "name", "Messages", "value", "1024", "inline", true),
+				Fixtures.createMap(interpreter, "name", "Members", "value", "256", "inline", true),
+				Fixtures.createMap(interpreter, "name", "Commands", "value", "64")
+			)
+		);
+	}
+}
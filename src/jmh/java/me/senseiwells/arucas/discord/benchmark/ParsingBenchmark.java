@@ -0,0 +1,99 @@
+package me.senseiwells.arucas.discord.benchmark;
+
+import me.senseiwells.arucas.classes.ClassInstance;
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.DiscordUtils;
+import me.senseiwells.arucas.discord.fixtures.Fixtures;
+import me.senseiwells.arucas.discord.impl.CommandNode;
+import me.senseiwells.arucas.utils.impl.ArucasMap;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsingBenchmark {
+	private Interpreter interpreter;
+	private ArucasMap embedMap;
+	private ArucasMap commandMap;
+	private ArucasMap subcommandMap;
+	private SlashCommandInteractionEvent commandEvent;
+
+	@Setup
+	public void setup() {
+		this.interpreter = Fixtures.createInterpreter();
+		Interpreter interpreter = this.interpreter;
+		this.embedMap = Fixtures.createMap(interpreter,
+			"title", "Server statistics",
+			"description", "Statistics for the last 24 hours",
+			"colour", 0x5865F2,
+			"fields", List.of(
+				Fixtures.createMap(interpreter, "name", "Messages", "value", "1024", "inline", true),
+				Fixtures.createMap(interpreter, "name", "Members", "value", "256", "inline", true),
+				Fixtures.createMap(interpreter, "name", "Commands", "value", "64")
+			)
+		);
+		this.commandMap = Fixtures.createMap(interpreter,
+			"name", "remind",
+			"description", "Sets a reminder",
+			"command", Fixtures.createFunction("remind", 4),
+			"options", List.of(
+				Fixtures.createMap(interpreter, "name", "message", "description", "What to remind you of", "type", "string", "required", true),
+				Fixtures.createMap(interpreter, "name", "minutes", "description", "How long to wait", "type", "integer", "required", true),
+				Fixtures.createMap(interpreter, "name", "private", "description", "Whether to send it privately", "type", "boolean")
+			)
+		);
+		this.subcommandMap = Fixtures.createMap(interpreter,
+			"name", "config",
+			"description", "Configures the bot",
+			"subcommands", List.of(
+				Fixtures.createMap(interpreter, "name", "get", "description", "Gets a setting", "command", Fixtures.createFunction("get", 2), "options", List.of(
+					Fixtures.createMap(interpreter, "name", "key", "description", "The setting", "type", "string", "required", true)
+				)),
+				Fixtures.createMap(interpreter, "name", "reset", "description", "Resets the settings", "command", Fixtures.createFunction("reset", 1))
+			)
+		);
+
+		JDA jda = Fixtures.createJda();
+		User user = Fixtures.createUser(jda);
+		TextChannel channel = Fixtures.createChannel(jda, Fixtures.createServer(jda, user));
+		this.commandEvent = Fixtures.createSlashEvent(jda, channel, user, "remind", List.of(
+			Fixtures.createOption("message", OptionType.STRING, "Take a break"),
+			Fixtures.createOption("minutes", OptionType.INTEGER, 30),
+			Fixtures.createOption("private", OptionType.BOOLEAN, true)
+		));
+	}
+
+	@Benchmark
+	public MessageEmbed parseMapAsEmbed() {
+		return DiscordUtils.parseMapAsEmbed(this.interpreter, this.embedMap);
+	}
+
+	@Benchmark
+	public SlashCommandData parseMapAsCommand() {
+		return DiscordUtils.parseMapAsCommand(this.interpreter, new HashMap<String, CommandNode>(), this.commandMap);
+	}
+
+	@Benchmark
+	public SlashCommandData parseMapAsCommandWithSubcommands() {
+		return DiscordUtils.parseMapAsCommand(this.interpreter, new HashMap<String, CommandNode>(), this.subcommandMap);
+	}
+
+	@Benchmark
+	public List<ClassInstance> getParameters() {
+		return DiscordUtils.getParameters(this.interpreter, this.commandEvent);
+	}
+}
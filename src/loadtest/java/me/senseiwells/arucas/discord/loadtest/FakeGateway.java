@@ -0,0 +1,84 @@
+package me.senseiwells.arucas.discord.loadtest;
+
+import me.senseiwells.arucas.discord.fixtures.Fixtures;
+import me.senseiwells.arucas.discord.impl.DiscordBot;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.user.update.UserUpdateNameEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Delivers events on a single thread, like JDA's gateway, so a slow onEvent lowers the achieved rate
+public class FakeGateway {
+	private final DiscordBot bot;
+	private final JDA jda;
+	private final TextChannel channel;
+	private final User user;
+	private final LoadTestOptions options;
+	private final String[] kinds;
+	private final int[] weights;
+	private final int totalWeight;
+	private long sent;
+
+	public FakeGateway(DiscordBot bot, JDA jda, TextChannel channel, User user, LoadTestOptions options) {
+		this.bot = bot;
+		this.jda = jda;
+		this.channel = channel;
+		this.user = user;
+		this.options = options;
+		this.kinds = new String[options.mix().size()];
+		this.weights = new int[options.mix().size()];
+		int i = 0;
+		int total = 0;
+		for (Map.Entry<String, Integer> entry : options.mix().entrySet()) {
+			this.kinds[i] = entry.getKey();
+			total += entry.getValue();
+			this.weights[i++] = total;
+		}
+		this.totalWeight = total;
+	}
+
+	public void run() {
+		long interval = TimeUnit.SECONDS.toNanos(1) / this.options.rate();
+		long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(this.options.seconds());
+		long next = System.nanoTime();
+		while (next < end) {
+			this.bot.onEvent(this.createEvent(this.pickKind()));
+			this.sent++;
+			next += interval;
+			long wait = next - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+		}
+	}
+
+	public long getSent() {
+		return this.sent;
+	}
+
+	private String pickKind() {
+		int roll = ThreadLocalRandom.current().nextInt(this.totalWeight);
+		for (int i = 0; i < this.weights.length; i++) {
+			if (roll < this.weights[i]) {
+				return this.kinds[i];
+			}
+		}
+		return this.kinds[this.kinds.length - 1];
+	}
+
+	private GenericEvent createEvent(String kind) {
+		return switch (kind) {
+			case "message" -> new MessageReceivedEvent(this.jda, this.sent, Fixtures.createMessage(this.jda, this.channel, this.user, "Load test message " + this.sent));
+			case "command" -> Fixtures.createSlashEvent(this.jda, this.channel, this.user, this.options.command(), List.of());
+			default -> new UserUpdateNameEvent(this.jda, this.sent, this.user, "Sensei");
+		};
+	}
+}
@@ -0,0 +1,182 @@
+package me.senseiwells.arucas.discord.loadtest;
+
+import me.senseiwells.arucas.discord.fixtures.Stubs;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.requests.RestAction;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Stands in for Discord's REST api, every stubbed method that returns a RestAction gets one that
+// completes after the configured latency, a rate limit only adds the retry delay to the stub action,
+// JDA's requester and its rate limit buckets are never involved
+public class FakeRest implements Stubs.Fallback {
+	private final LoadTestOptions options;
+	private final ScheduledExecutorService scheduler;
+	private final Map<String, LongAdder> routes;
+	private final LongAdder requests;
+	private final LongAdder rateLimited;
+	private final LongAdder failed;
+	private volatile JDA jda;
+
+	public FakeRest(LoadTestOptions options) {
+		this.options = options;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Fake REST");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.routes = new ConcurrentHashMap<>();
+		this.requests = new LongAdder();
+		this.rateLimited = new LongAdder();
+		this.failed = new LongAdder();
+	}
+
+	public void setJda(JDA jda) {
+		this.jda = jda;
+	}
+
+	@Override
+	public Object answer(Object proxy, Method method) {
+		if (!RestAction.class.isAssignableFrom(method.getReturnType())) {
+			return null;
+		}
+		return this.createAction(method.getReturnType(), method.getName(), getResultType(method.getGenericReturnType()));
+	}
+
+	private Object createAction(Class<?> type, String route, Class<?> resultType) {
+		Stubs.Answer submit = (proxy, args) -> this.send(route, resultType);
+		Stubs.Answer complete = (proxy, args) -> {
+			try {
+				return this.send(route, resultType).join();
+			} catch (CompletionException e) {
+				throw e.getCause();
+			}
+		};
+		Stubs.Answer queue = (proxy, args) -> {
+			Consumer<Object> success = getArgument(args, 0);
+			Consumer<Throwable> failure = getArgument(args, 1);
+			this.send(route, resultType).whenComplete((value, throwable) -> {
+				if (throwable == null && success != null) {
+					success.accept(value);
+				} else if (throwable != null && failure != null) {
+					failure.accept(throwable);
+				}
+			});
+			return null;
+		};
+		// Builder methods return the action itself so options can be chained before it is sent
+		Stubs.Fallback builder = (proxy, method) -> method.getReturnType().isInstance(proxy) ? proxy : null;
+		return Stubs.stub(type, Map.of(
+			"submit", submit,
+			"complete", complete,
+			"queue", queue,
+			"getJDA", (Stubs.Answer) (proxy, args) -> this.jda
+		), builder);
+	}
+
+	private CompletableFuture<Object> send(String route, Class<?> resultType) {
+		this.requests.increment();
+		this.routes.computeIfAbsent(route, r -> new LongAdder()).increment();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long delay = this.options.restLatency();
+		if (this.options.restJitter() > 0) {
+			delay += random.nextLong(this.options.restJitter() + 1);
+		}
+		if (random.nextDouble() < this.options.rateLimitChance()) {
+			this.rateLimited.increment();
+			delay += this.options.retryAfter();
+		}
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		boolean fail = random.nextDouble() < this.options.errorChance();
+		this.scheduler.schedule(() -> {
+			if (fail) {
+				this.failed.increment();
+				future.completeExceptionally(new IllegalStateException("Simulated failure of " + route));
+			} else {
+				future.complete(this.createResult(resultType));
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+		return future;
+	}
+
+	private Object createResult(Class<?> resultType) {
+		if (resultType == null || resultType == Void.class) {
+			return null;
+		}
+		if (List.class.isAssignableFrom(resultType)) {
+			return List.of();
+		}
+		if (resultType.isInterface()) {
+			return Stubs.stub(resultType, Map.of("getJDA", (Stubs.Answer) (proxy, args) -> this.jda));
+		}
+		return null;
+	}
+
+	public void shutdown() {
+		this.scheduler.shutdownNow();
+	}
+
+	public long getRequests() {
+		return this.requests.sum();
+	}
+
+	public long getRateLimited() {
+		return this.rateLimited.sum();
+	}
+
+	public long getFailed() {
+		return this.failed.sum();
+	}
+
+	public Map<String, Long> getRoutes() {
+		Map<String, Long> routes = new TreeMap<>();
+		this.routes.forEach((route, count) -> routes.put(route, count.sum()));
+		return routes;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T getArgument(Object[] args, int index) {
+		return args != null && args.length > index ? (T) args[index] : null;
+	}
+
+	// Finds T in RestAction<T>, for example Message for a MessageCreateAction
+	private static Class<?> getResultType(Type type) {
+		if (type instanceof ParameterizedType parameterized) {
+			Class<?> raw = (Class<?>) parameterized.getRawType();
+			if (RestAction.class.isAssignableFrom(raw)) {
+				for (Type argument : parameterized.getActualTypeArguments()) {
+					if (argument instanceof Class<?> result) {
+						return result;
+					}
+					if (argument instanceof ParameterizedType result) {
+						return (Class<?>) result.getRawType();
+					}
+				}
+			}
+			type = raw;
+		}
+		if (type instanceof Class<?> clazz) {
+			for (Type parent : clazz.getGenericInterfaces()) {
+				Class<?> result = getResultType(parent);
+				if (result != null) {
+					return result;
+				}
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,108 @@
+package me.senseiwells.arucas.discord.loadtest;
+
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.fixtures.Fixtures;
+import me.senseiwells.arucas.discord.fixtures.Stubs;
+import me.senseiwells.arucas.discord.impl.DiscordBot;
+import me.senseiwells.arucas.discord.impl.DiscordMetrics;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Runs a script against a fake gateway and REST api, then reports how the bot kept up
+public class LoadTest {
+	private static final long DRAIN_TIMEOUT = TimeUnit.SECONDS.toNanos(60);
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		LoadTestOptions options;
+		try {
+			options = LoadTestOptions.parse(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(LoadTestOptions.USAGE);
+			System.exit(1);
+			return;
+		}
+
+		FakeRest rest = new FakeRest(options);
+		Stubs.setFallback(rest);
+		JDA jda = Fixtures.createJda();
+		rest.setJda(jda);
+		User user = Fixtures.createUser(jda);
+		TextChannel channel = Fixtures.createChannel(jda, Fixtures.createServer(jda, user));
+
+		// The bot needs the interpreter, so the script's LoadTest class gets it once it exists
+		AtomicReference<DiscordBot> bot = new AtomicReference<>();
+		String content = Files.readString(options.script());
+		Interpreter interpreter = Fixtures.createInterpreter(content, options.script().getFileName().toString(), builder -> {
+			builder.addClassDefinitions("discordapi.LoadTest", i -> new LoadTestDef(i, bot::get));
+		});
+		bot.set(new DiscordBot(jda, interpreter));
+		interpreter.executeBlocking();
+
+		FakeGateway gateway = new FakeGateway(bot.get(), jda, channel, user, options);
+		long started = System.nanoTime();
+		gateway.run();
+		long sending = System.nanoTime() - started;
+		boolean drained = awaitIdle(bot.get().getMetrics());
+		long elapsed = System.nanoTime() - started;
+
+		report(options, gateway, rest, bot.get(), sending, elapsed, drained);
+		bot.get().shutdown();
+		rest.shutdown();
+		System.exit(0);
+	}
+
+	private static boolean awaitIdle(DiscordMetrics metrics) throws InterruptedException {
+		long deadline = System.nanoTime() + DRAIN_TIMEOUT;
+		while (System.nanoTime() < deadline) {
+			long pending = 0;
+			for (long value : metrics.getPending().values()) {
+				pending += value;
+			}
+			if (pending == 0) {
+				return true;
+			}
+			Thread.sleep(50);
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void report(LoadTestOptions options, FakeGateway gateway, FakeRest rest, DiscordBot bot, long sending, long elapsed, boolean drained) {
+		DiscordMetrics metrics = bot.getMetrics();
+		Map<String, Object> handlers = metrics.getHandlerStats();
+		Map<String, Object> executor = bot.getHandlers().getStats();
+		double sendingSeconds = sending / 1e9;
+		double elapsedSeconds = elapsed / 1e9;
+
+		System.out.printf("Events: %d sent in %.1fs, %.1f/s achieved of %d/s requested%n", gateway.getSent(), sendingSeconds, gateway.getSent() / sendingSeconds, options.rate());
+		System.out.printf("Event types: %s%n", metrics.getEventCounts());
+		System.out.printf("Handlers: %d completed, %d errors, %.1f/s throughput, %s dropped, %s rejected%n",
+			metrics.getHandlersCompleted(), metrics.getHandlerErrors(), metrics.getHandlersCompleted() / elapsedSeconds,
+			executor.get("dropped"), executor.get("rejected")
+		);
+		printLatency("Handler wait", (Map<String, Object>) handlers.get("wait"));
+		printLatency("Handler run", (Map<String, Object>) handlers.get("latency"));
+		printLatency("End to end", (Map<String, Object>) handlers.get("total"));
+		System.out.printf("REST: %d requests, %d rate limited, %d failed%n", rest.getRequests(), rest.getRateLimited(), rest.getFailed());
+		System.out.printf("REST routes: %s%n", rest.getRoutes());
+		System.out.println("Rate limits are simulated as extra latency, JDA's rate limiter and bucket waits are not exercised");
+		printLatency("REST latency", (Map<String, Object>) metrics.getRestStats().get("latency"));
+		if (!drained) {
+			System.out.printf("Work was still pending after the timeout: %s%n", metrics.getPending());
+		}
+	}
+
+	private static void printLatency(String name, Map<String, Object> stats) {
+		System.out.printf("%s (ms): mean %.2f, p50 %.2f, p90 %.2f, p99 %.2f, max %.2f%n",
+			name, stats.get("mean"), stats.get("p50"), stats.get("p90"), stats.get("p99"), stats.get("max")
+		);
+	}
+}
@@ -0,0 +1,60 @@
+package me.senseiwells.arucas.discord.loadtest;
+
+import me.senseiwells.arucas.api.docs.ClassDoc;
+import me.senseiwells.arucas.api.docs.FunctionDoc;
+import me.senseiwells.arucas.classes.CreatableDefinition;
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.impl.DiscordBot;
+import me.senseiwells.arucas.utils.Arguments;
+import me.senseiwells.arucas.utils.BuiltInFunction;
+import me.senseiwells.arucas.utils.Util;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static me.senseiwells.arucas.discord.DiscordAPI.DISCORD_BOT;
+
+@ClassDoc(
+	name = LoadTestDef.LOAD_TEST,
+	desc = {
+		"This class is only available when a script is run by the load test harness,",
+		"scripts should use the bot from 'getBot' instead of creating their own."
+	},
+	importPath = "discordapi.LoadTest",
+	language = Util.Language.Java
+)
+public class LoadTestDef extends CreatableDefinition<DiscordBot> {
+	public static final String LOAD_TEST = "LoadTest";
+
+	private final Supplier<DiscordBot> bot;
+
+	public LoadTestDef(Interpreter interpreter, Supplier<DiscordBot> bot) {
+		super(LOAD_TEST, interpreter);
+		this.bot = bot;
+	}
+
+	@Override
+	public List<BuiltInFunction> defineStaticMethods() {
+		return List.of(
+			BuiltInFunction.of("getBot", this::getBot)
+		);
+	}
+
+	@FunctionDoc(
+		isStatic = true,
+		name = "getBot",
+		desc = "This gets the bot that the harness sends events to, its requests go to the fake REST api",
+		returns = {DISCORD_BOT, "the bot"},
+		examples = """
+		import LoadTest from discordapi.LoadTest;
+
+		bot = LoadTest.getBot();
+		bot.registerEvent('MessageReceivedEvent', fun(event) {
+		    event.reply('Hello!');
+		});
+		"""
+	)
+	public DiscordBot getBot(Arguments arguments) {
+		return this.bot.get();
+	}
+}
@@ -0,0 +1,91 @@
+package me.senseiwells.arucas.discord.loadtest;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public record LoadTestOptions(
+	Path script,
+	int rate,
+	int seconds,
+	Map<String, Integer> mix,
+	String command,
+	long restLatency,
+	long restJitter,
+	double rateLimitChance,
+	long retryAfter,
+	double errorChance
+) {
+	private static final Set<String> OPTIONS = Set.of(
+		"script", "rate", "seconds", "mix", "command", "rest-latency", "rest-jitter", "rate-limit", "retry-after", "errors"
+	);
+
+	public static final String USAGE = """
+		Usage: --script <file> [options]
+		  --rate <events per second>       default 100
+		  --seconds <duration>             default 30
+		  --mix <kind=weight,...>          kinds are message, command, and other, default message=90,command=10
+		  --command <name>                 the slash command sent by command events, default ping
+		  --rest-latency <ms>              default 50
+		  --rest-jitter <ms>               default 25
+		  --rate-limit <chance>            chance of a request being rate limited, default 0.01
+		  --retry-after <ms>               how long a rate limited request waits, default 1000
+		  --errors <chance>                chance of a request failing, default 0
+		""";
+
+	public static LoadTestOptions parse(String[] args) {
+		Map<String, String> values = new HashMap<>();
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("--") || i + 1 >= args.length) {
+				throw new IllegalArgumentException("Expected '--option value' but got '%s'".formatted(args[i]));
+			}
+			String name = args[i].substring(2);
+			if (!OPTIONS.contains(name)) {
+				throw new IllegalArgumentException("Unknown option '--%s'".formatted(name));
+			}
+			values.put(name, args[++i]);
+		}
+		String script = values.remove("script");
+		if (script == null) {
+			throw new IllegalArgumentException("A script must be given with --script");
+		}
+		LoadTestOptions options = new LoadTestOptions(
+			Path.of(script),
+			Integer.parseInt(values.getOrDefault("rate", "100")),
+			Integer.parseInt(values.getOrDefault("seconds", "30")),
+			parseMix(values.getOrDefault("mix", "message=90,command=10")),
+			values.getOrDefault("command", "ping"),
+			Long.parseLong(values.getOrDefault("rest-latency", "50")),
+			Long.parseLong(values.getOrDefault("rest-jitter", "25")),
+			Double.parseDouble(values.getOrDefault("rate-limit", "0.01")),
+			Long.parseLong(values.getOrDefault("retry-after", "1000")),
+			Double.parseDouble(values.getOrDefault("errors", "0"))
+		);
+		if (options.rate < 1 || options.seconds < 1) {
+			throw new IllegalArgumentException("Rate and seconds must be at least 1");
+		}
+		if (options.mix.values().stream().mapToInt(Integer::intValue).sum() < 1) {
+			throw new IllegalArgumentException("The mix weights must add up to at least 1");
+		}
+		return options;
+	}
+
+	private static Map<String, Integer> parseMix(String mix) {
+		Map<String, Integer> weights = new LinkedHashMap<>();
+		for (String entry : mix.split(",")) {
+			String[] parts = entry.split("=");
+			String kind = parts[0].trim().toLowerCase();
+			if (parts.length != 2 || !(kind.equals("message") || kind.equals("command") || kind.equals("other"))) {
+				throw new IllegalArgumentException("'%s' is an invalid mix entry, expected message, command, or other with a weight".formatted(entry));
+			}
+			int weight = Integer.parseInt(parts[1].trim());
+			if (weight < 0) {
+				throw new IllegalArgumentException("'%s' has a negative weight".formatted(entry));
+			}
+			weights.put(kind, weight);
+		}
+		return weights;
+	}
+}
@@ -5,6 +5,9 @@ import me.senseiwells.arucas.api.docs.parser.DocParser;
 import me.senseiwells.arucas.core.Arucas;
 import me.senseiwells.arucas.discord.definitions.*;
 import me.senseiwells.arucas.discord.impl.DiscordBot;
+import me.senseiwells.arucas.discord.impl.DiscordEvent;
+import me.senseiwells.arucas.discord.impl.DiscordMetrics;
+import me.senseiwells.arucas.discord.impl.EmbedTemplate;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Message;
@@ -19,8 +22,10 @@ public class DiscordAPI {
 		DISCORD_ATTACHMENT = "DiscordAttachment",
 		DISCORD_BOT = "DiscordBot",
 		DISCORD_CHANNEL = "DiscordChannel",
+		DISCORD_EMBED_TEMPLATE = "DiscordEmbedTemplate",
 		DISCORD_EVENT = "DiscordEvent",
 		DISCORD_MESSAGE = "DiscordMessage",
+		DISCORD_METRICS = "DiscordMetrics",
 		DISCORD_SERVER = "DiscordServer",
 		DISCORD_USER = "DiscordUser";
 
@@ -31,16 +36,24 @@ public class DiscordAPI {
 			DiscordAttachmentDef::new,
 			DiscordBotDef::new,
 			DiscordChannelDef::new,
+			DiscordEmbedTemplateDef::new,
 			DiscordEventDef::new,
 			DiscordMessageDef::new,
+			DiscordMetricsDef::new,
 			DiscordServerDef::new,
 			DiscordUserDef::new
 		);
 		builder.addConversion(Message.Attachment.class, (a, i) -> i.create(DiscordAttachmentDef.class, a));
 		builder.addConversion(DiscordBot.class, (d, i) -> i.create(DiscordBotDef.class, d));
-		builder.addConversion(JDA.class, (j, i) -> i.create(DiscordBotDef.class, new DiscordBot(j, i)));
+		builder.addConversion(JDA.class, (j, i) -> {
+			DiscordBot bot = DiscordBot.get(j);
+			return i.create(DiscordBotDef.class, bot == null ? new DiscordBot(j, i) : bot);
+		});
+		builder.addConversion(EmbedTemplate.class, (t, i) -> i.create(DiscordEmbedTemplateDef.class, t));
 		builder.addConversion(TextChannel.class, (t, i) -> i.create(DiscordChannelDef.class, t));
-		builder.addConversion(GenericEvent.class, (e, i) -> i.create(DiscordEventDef.class, e));
+		builder.addConversion(GenericEvent.class, (e, i) -> i.create(DiscordEventDef.class, new DiscordEvent(e)));
+		builder.addConversion(DiscordEvent.class, (e, i) -> i.create(DiscordEventDef.class, e));
+		builder.addConversion(DiscordMetrics.class, (m, i) -> i.create(DiscordMetricsDef.class, m));
 		builder.addConversion(Message.class, (m, i) -> i.create(DiscordMessageDef.class, m));
 		builder.addConversion(Guild.class, (g, i) -> i.create(DiscordServerDef.class, g));
 		builder.addConversion(User.class, (u, i) -> i.create(DiscordUserDef.class, u));
@@ -2,15 +2,26 @@ package me.senseiwells.arucas.discord;
 
 import me.senseiwells.arucas.builtin.*;
 import me.senseiwells.arucas.classes.ClassInstance;
-import me.senseiwells.arucas.classes.PrimitiveDefinition;
 import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.definitions.DiscordEmbedTemplateDef;
+import me.senseiwells.arucas.discord.impl.BotOptions;
+import me.senseiwells.arucas.discord.impl.CommandNode;
+import me.senseiwells.arucas.discord.impl.CommandTree;
+import me.senseiwells.arucas.discord.impl.DiscordBot;
+import me.senseiwells.arucas.discord.impl.EmbedTemplate;
+import me.senseiwells.arucas.discord.impl.EventCoalescer;
+import me.senseiwells.arucas.discord.impl.EventFilter;
+import me.senseiwells.arucas.discord.impl.EventKey;
+import me.senseiwells.arucas.discord.impl.EventSubscription;
+import me.senseiwells.arucas.discord.impl.MapSchema;
+import me.senseiwells.arucas.discord.impl.Permissions;
+import me.senseiwells.arucas.discord.impl.RestScheduler;
 import me.senseiwells.arucas.exceptions.RuntimeError;
 import me.senseiwells.arucas.utils.ArucasFunction;
 import me.senseiwells.arucas.utils.impl.ArucasIterable;
 import me.senseiwells.arucas.utils.impl.ArucasList;
 import me.senseiwells.arucas.utils.impl.ArucasMap;
 import net.dv8tion.jda.api.EmbedBuilder;
-import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.ISnowflake;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
@@ -19,39 +30,167 @@ import net.dv8tion.jda.api.events.interaction.command.GenericCommandInteractionE
 import net.dv8tion.jda.api.interactions.commands.OptionMapping;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
 import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandGroupData;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.managers.RoleManager;
 import net.dv8tion.jda.api.requests.restaction.RoleAction;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MiscUtil;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 public class DiscordUtils {
-	private static Map<String, Permission> cachedPermissions;
-
 	public static String getId(ISnowflake snowflake) {
 		return snowflake.getId();
 	}
 
-	private static <T extends PrimitiveDefinition<V>, V> V getFieldInMap(ArucasMap map, Interpreter interpreter, String field, Class<T> type) {
-		ClassInstance instance = getFieldInMap(map, interpreter, field);
-		return instance == null ? null : instance.getPrimitive(type);
+	// Requests go through the bot's scheduler, the route names the operation in the rest stats
+	public static <T> T complete(String route, RestAction<T> action) {
+		return complete(route, RestScheduler.NO_MAJOR, action);
+	}
+
+	// The major id is the channel or server the request is for, requests for different ones don't hold each other up
+	public static <T> T complete(String route, long major, RestAction<T> action) {
+		DiscordBot bot = DiscordBot.get(action.getJDA());
+		return bot == null ? action.complete() : bot.getRestScheduler().complete(route, major, action);
+	}
+
+	public static <T> CompletableFuture<T> submit(String route, RestAction<T> action) {
+		return submit(route, RestScheduler.NO_MAJOR, action);
+	}
+
+	public static <T> CompletableFuture<T> submit(String route, long major, RestAction<T> action) {
+		DiscordBot bot = DiscordBot.get(action.getJDA());
+		return bot == null ? action.submit() : bot.getRestScheduler().submit(route, major, action);
+	}
+
+	public static <T> CompletableFuture<T> submit(RestScheduler.Lane lane, String route, long major, RestAction<T> action) {
+		DiscordBot bot = DiscordBot.get(action.getJDA());
+		return bot == null ? action.submit() : bot.getRestScheduler().submit(lane, route, major, action);
 	}
 
-	private static ClassInstance getFieldInMap(ArucasMap map, Interpreter interpreter, String field) {
-		return map.get(interpreter, interpreter.create(StringDef.class, field));
+	public static void sideEffect(String route, RestAction<?> action) {
+		sideEffect(route, RestScheduler.NO_MAJOR, action);
+	}
+
+	public static void sideEffect(String route, long major, RestAction<?> action) {
+		DiscordBot bot = DiscordBot.get(action.getJDA());
+		if (bot == null) {
+			action.complete();
+			return;
+		}
+		RestScheduler scheduler = bot.getRestScheduler();
+		if (!bot.isQueueingSideEffects()) {
+			scheduler.complete(route, major, action);
+			return;
+		}
+		scheduler.submit(route, major, action).whenComplete((v, throwable) -> {
+			if (throwable != null) {
+				bot.onRestFailure(throwable);
+			}
+		});
 	}
 
+	private static final MapSchema EMBED = new MapSchema("Embed");
+	private static final MapSchema.Field<String> EMBED_TITLE = EMBED.optional("title", StringDef.class);
+	private static final MapSchema.Field<ClassInstance> EMBED_DESCRIPTION = EMBED.any("description");
+	private static final MapSchema.Field<Double> EMBED_COLOUR = EMBED.optional("colour", NumberDef.class);
+	private static final MapSchema.Field<Double> EMBED_COLOR = EMBED.optional("color", NumberDef.class);
+	private static final MapSchema.Field<ArucasList> EMBED_FIELDS = EMBED.optional("fields", ListDef.class);
+	private static final MapSchema.Field<String> EMBED_IMAGE = EMBED.optional("image", StringDef.class);
+
+	private static final MapSchema EMBED_FIELD = new MapSchema("Embed field");
+	private static final MapSchema.Field<String> EMBED_FIELD_NAME = EMBED_FIELD.required("name", StringDef.class);
+	private static final MapSchema.Field<String> EMBED_FIELD_VALUE = EMBED_FIELD.required("value", StringDef.class);
+	private static final MapSchema.Field<Boolean> EMBED_FIELD_INLINE = EMBED_FIELD.optional("inline", BooleanDef.class);
+
+	private static final MapSchema ROLE = new MapSchema("Role");
+	private static final MapSchema.Field<String> ROLE_NAME = ROLE.optional("name", StringDef.class);
+	private static final MapSchema.Field<Double> ROLE_COLOUR = ROLE.optional("colour", NumberDef.class);
+	private static final MapSchema.Field<Double> ROLE_COLOR = ROLE.optional("color", NumberDef.class);
+	private static final MapSchema.Field<Boolean> ROLE_HOISTED = ROLE.optional("hoisted", BooleanDef.class);
+	private static final MapSchema.Field<Boolean> ROLE_MENTIONABLE = ROLE.optional("mentionable", BooleanDef.class);
+	private static final MapSchema.Field<ClassInstance> ROLE_PERMISSIONS = ROLE.any("permissions");
+
+	private static final MapSchema OPTIONS = new MapSchema("Bot options");
+	private static final MapSchema.Field<ArucasIterable> OPTIONS_INTENTS = OPTIONS.optional("intents", IterableDef.class);
+	private static final MapSchema.Field<ArucasIterable> OPTIONS_CACHE = OPTIONS.optional("cache", IterableDef.class);
+	private static final MapSchema.Field<String> OPTIONS_MEMBER_CACHE = OPTIONS.optional("memberCache", StringDef.class);
+	private static final MapSchema.Field<ClassInstance> OPTIONS_CHUNKING = OPTIONS.any("chunking");
+	private static final MapSchema.Field<Boolean> OPTIONS_COMPRESSION = OPTIONS.optional("compression", BooleanDef.class);
+	private static final MapSchema.Field<Double> OPTIONS_LARGE_THRESHOLD = OPTIONS.optional("largeThreshold", NumberDef.class);
+	private static final MapSchema.Field<Double> OPTIONS_EVENT_POOL_SIZE = OPTIONS.optional("eventPoolSize", NumberDef.class);
+	private static final MapSchema.Field<Double> OPTIONS_SHARDS = OPTIONS.optional("shards", NumberDef.class);
+	private static final MapSchema.Field<ArucasList> OPTIONS_SHARD_RANGE = OPTIONS.optional("shardRange", ListDef.class);
+
+	private static final MapSchema SUBSCRIPTION = new MapSchema("Event options");
+	private static final MapSchema.Field<String> SUBSCRIPTION_SEQUENCE = SUBSCRIPTION.optional("sequence", StringDef.class);
+	private static final MapSchema.Field<ArucasMap> SUBSCRIPTION_FILTER = SUBSCRIPTION.optional("filter", MapDef.class);
+	private static final MapSchema.Field<ArucasMap> SUBSCRIPTION_COALESCE = SUBSCRIPTION.optional("coalesce", MapDef.class);
+
+	private static final MapSchema COALESCE = new MapSchema("Event coalescing");
+	private static final MapSchema.Field<String> COALESCE_KEY = COALESCE.required("key", StringDef.class);
+	private static final MapSchema.Field<Double> COALESCE_WINDOW = COALESCE.required("window", NumberDef.class);
+	private static final MapSchema.Field<Boolean> COALESCE_BATCH = COALESCE.optional("batch", BooleanDef.class);
+
+	private static final MapSchema FILTER = new MapSchema("Event filter");
+	private static final MapSchema.Field<ArucasList> FILTER_SERVERS = FILTER.optional("servers", ListDef.class);
+	private static final MapSchema.Field<ArucasList> FILTER_CHANNELS = FILTER.optional("channels", ListDef.class);
+	private static final MapSchema.Field<Boolean> FILTER_BOT = FILTER.optional("bot", BooleanDef.class);
+	private static final MapSchema.Field<String> FILTER_PREFIX = FILTER.optional("prefix", StringDef.class);
+	private static final MapSchema.Field<String> FILTER_REGEX = FILTER.optional("regex", StringDef.class);
+	private static final MapSchema.Field<Boolean> FILTER_ATTACHMENTS = FILTER.optional("attachments", BooleanDef.class);
+
+	private static final MapSchema COMMAND = new MapSchema("Command");
+	private static final MapSchema.Field<String> COMMAND_NAME = COMMAND.required("name", StringDef.class);
+	private static final MapSchema.Field<String> COMMAND_DESCRIPTION = COMMAND.required("description", StringDef.class);
+	private static final MapSchema.Field<ArucasFunction> COMMAND_FUNCTION = COMMAND.optional("command", FunctionDef.class);
+	private static final MapSchema.Field<ArucasMap> COMMAND_NEXT = COMMAND.optional("next", MapDef.class);
+	private static final MapSchema.Field<ArucasList> COMMAND_OPTIONS = COMMAND.optional("options", ListDef.class);
+	private static final MapSchema.Field<ArucasList> COMMAND_SUBCOMMANDS = COMMAND.optional("subcommands", ListDef.class);
+	private static final MapSchema.Field<ArucasList> COMMAND_GROUPS = COMMAND.optional("groups", ListDef.class);
+
+	private static final MapSchema GROUP = new MapSchema("Subcommand group");
+	private static final MapSchema.Field<String> GROUP_NAME = GROUP.required("name", StringDef.class);
+	private static final MapSchema.Field<String> GROUP_DESCRIPTION = GROUP.required("description", StringDef.class);
+	private static final MapSchema.Field<ArucasList> GROUP_SUBCOMMANDS = GROUP.required("subcommands", ListDef.class);
+
+	private static final MapSchema SUBCOMMAND = new MapSchema("Subcommand");
+	private static final MapSchema.Field<String> SUBCOMMAND_NAME = SUBCOMMAND.required("name", StringDef.class);
+	private static final MapSchema.Field<String> SUBCOMMAND_DESCRIPTION = SUBCOMMAND.required("description", StringDef.class);
+	private static final MapSchema.Field<ArucasFunction> SUBCOMMAND_FUNCTION = SUBCOMMAND.required("command", FunctionDef.class);
+	private static final MapSchema.Field<ArucasList> SUBCOMMAND_OPTIONS = SUBCOMMAND.optional("options", ListDef.class);
+
+	private static final MapSchema OPTION = new MapSchema("Command option");
+	private static final MapSchema.Field<String> OPTION_TYPE = OPTION.required("type", StringDef.class);
+	private static final MapSchema.Field<String> OPTION_NAME = OPTION.required("name", StringDef.class);
+	private static final MapSchema.Field<String> OPTION_DESCRIPTION = OPTION.required("description", StringDef.class);
+	private static final MapSchema.Field<Boolean> OPTION_REQUIRED = OPTION.optional("required", BooleanDef.class);
+	private static final MapSchema.Field<ArucasFunction> OPTION_FUNCTION = OPTION.optional("command", FunctionDef.class);
+	private static final MapSchema.Field<ArucasMap> OPTION_NEXT = OPTION.optional("next", MapDef.class);
+
 	public static MessageEmbed parseMapAsEmbed(Interpreter interpreter, ArucasMap map) {
+		MapSchema.Decoded embed = EMBED.decode(interpreter, map);
 		EmbedBuilder embedBuilder = new EmbedBuilder();
 
-		String title = getFieldInMap(map, interpreter, "title", StringDef.class);
+		String title = embed.get(EMBED_TITLE);
 		if (title != null) {
 			embedBuilder.setTitle(title);
 		}
 
-		ClassInstance description = getFieldInMap(map, interpreter, "description");
+		ClassInstance description = embed.get(EMBED_DESCRIPTION);
 		if (description != null) {
 			ArucasIterable iterable = description.getPrimitive(IterableDef.class);
 			if (iterable != null) {
@@ -63,118 +202,358 @@ public class DiscordUtils {
 			}
 		}
 
-		Double colour = getFieldInMap(map, interpreter, "colour", NumberDef.class);
-		if (colour == null) {
-			colour = getFieldInMap(map, interpreter, "color", NumberDef.class);
-		}
+		Double colour = embed.get(EMBED_COLOUR, embed.get(EMBED_COLOR));
 		if (colour != null) {
 			embedBuilder.setColor(colour.intValue());
 		}
 
-		ArucasList list = getFieldInMap(map, interpreter, "fields", ListDef.class);
+		ArucasList list = embed.get(EMBED_FIELDS);
 		if (list != null) {
 			for (ClassInstance field : list) {
 				ArucasMap fieldObj = field.getPrimitive(MapDef.class);
 				if (fieldObj == null) {
 					continue;
 				}
-				String name = getFieldInMap(fieldObj, interpreter, "name", StringDef.class);
-				if (name == null) {
-					throw new RuntimeError("Field 'name' was null");
-				}
-				String value = getFieldInMap(fieldObj, interpreter, "value", StringDef.class);
-				if (value == null) {
-					throw new RuntimeError("Field 'value' was null");
-				}
-				Boolean inline = getFieldInMap(fieldObj, interpreter, "ineline", BooleanDef.class);
-				if (inline == null) {
-					throw new RuntimeError("Field 'inline' was null");
-				}
-				embedBuilder.addField(name, value, inline);
+				MapSchema.Decoded embedField = EMBED_FIELD.decode(interpreter, fieldObj);
+				embedBuilder.addField(embedField.get(EMBED_FIELD_NAME), embedField.get(EMBED_FIELD_VALUE), embedField.get(EMBED_FIELD_INLINE, false));
 			}
 		}
 
-		String image = getFieldInMap(map, interpreter, "image", StringDef.class);
+		String image = embed.get(EMBED_IMAGE);
 		if (image != null) {
 			embedBuilder.setImage(image);
 		}
 		return embedBuilder.build();
 	}
 
-	public static void parseMapAsRole(Interpreter interpreter, RoleAction roleAction, ArucasMap map) {
-		String name = getFieldInMap(map, interpreter, "name", StringDef.class);
+	public static EmbedTemplate parseMapAsEmbedTemplate(Interpreter interpreter, ArucasMap map) {
+		MapSchema.Decoded embed = EMBED.decode(interpreter, map);
+		String description = null;
+		ClassInstance descriptionInstance = embed.get(EMBED_DESCRIPTION);
+		if (descriptionInstance != null) {
+			ArucasIterable iterable = descriptionInstance.getPrimitive(IterableDef.class);
+			if (iterable != null) {
+				StringBuilder builder = new StringBuilder();
+				for (ClassInstance desc : iterable) {
+					builder.append(desc.toString(interpreter));
+				}
+				description = builder.toString();
+			} else {
+				description = descriptionInstance.toString(interpreter);
+			}
+		}
+
+		Double colour = embed.get(EMBED_COLOUR, embed.get(EMBED_COLOR));
+		List<EmbedTemplate.FieldData> fields = new ArrayList<>();
+		ArucasList list = embed.get(EMBED_FIELDS);
+		if (list != null) {
+			for (ClassInstance field : list) {
+				ArucasMap fieldObj = field.getPrimitive(MapDef.class);
+				if (fieldObj == null) {
+					continue;
+				}
+				MapSchema.Decoded embedField = EMBED_FIELD.decode(interpreter, fieldObj);
+				fields.add(new EmbedTemplate.FieldData(embedField.get(EMBED_FIELD_NAME), embedField.get(EMBED_FIELD_VALUE), embedField.get(EMBED_FIELD_INLINE, false)));
+			}
+		}
+		return new EmbedTemplate(embed.get(EMBED_TITLE), description, colour == null ? null : colour.intValue(), fields, embed.get(EMBED_IMAGE));
+	}
+
+	// Embeds can be given as a map or as a template, values are only used by templates
+	public static MessageEmbed parseEmbed(Interpreter interpreter, ClassInstance embed, ArucasMap values) {
+		EmbedTemplate template = embed.getPrimitive(DiscordEmbedTemplateDef.class);
+		if (template != null) {
+			return template.render(interpreter, values);
+		}
+		ArucasMap map = embed.getPrimitive(MapDef.class);
+		if (map == null) {
+			throw new RuntimeError("Expected an embed map or a DiscordEmbedTemplate");
+		}
+		if (values != null) {
+			throw new RuntimeError("Placeholder values can only be used with a DiscordEmbedTemplate");
+		}
+		return parseMapAsEmbed(interpreter, map);
+	}
+
+	public static RoleAction parseMapAsRole(Interpreter interpreter, RoleAction roleAction, ArucasMap map) {
+		MapSchema.Decoded role = ROLE.decode(interpreter, map);
+		String name = role.get(ROLE_NAME);
 		if (name != null) {
 			roleAction = roleAction.setName(name);
 		}
 
-		Double colour = getFieldInMap(map, interpreter, "colour", NumberDef.class);
-		if (colour == null) {
-			colour = getFieldInMap(map, interpreter, "color", NumberDef.class);
-		}
+		Double colour = role.get(ROLE_COLOUR, role.get(ROLE_COLOR));
 		if (colour != null) {
 			roleAction = roleAction.setColor(colour.intValue());
 		}
 
-		Boolean hoisted = getFieldInMap(map, interpreter, "hoisted", BooleanDef.class);
-		if (hoisted == Boolean.TRUE) {
-			roleAction = roleAction.setHoisted(true);
+		Boolean hoisted = role.get(ROLE_HOISTED);
+		if (hoisted != null) {
+			roleAction = roleAction.setHoisted(hoisted);
 		}
 
-		Boolean mentionable = getFieldInMap(map, interpreter, "mentionable", BooleanDef.class);
-		if (mentionable == Boolean.TRUE) {
-			roleAction = roleAction.setMentionable(true);
+		Boolean mentionable = role.get(ROLE_MENTIONABLE);
+		if (mentionable != null) {
+			roleAction = roleAction.setMentionable(mentionable);
 		}
 
-		ArucasIterable permissions = getFieldInMap(map, interpreter, "permissions", IterableDef.class);
-		if (permissions == null) {
-			roleAction.complete();
-			return;
+		ClassInstance permissions = role.get(ROLE_PERMISSIONS);
+		if (permissions != null) {
+			roleAction = roleAction.setPermissions(Permissions.parseMask(interpreter, permissions));
+		}
+		return roleAction;
+	}
+
+	public static RoleManager parseMapAsRoleEdit(Interpreter interpreter, RoleManager roleManager, ArucasMap map) {
+		MapSchema.Decoded role = ROLE.decode(interpreter, map);
+		String name = role.get(ROLE_NAME);
+		if (name != null) {
+			roleManager = roleManager.setName(name);
+		}
+
+		Double colour = role.get(ROLE_COLOUR, role.get(ROLE_COLOR));
+		if (colour != null) {
+			roleManager = roleManager.setColor(colour.intValue());
 		}
 
-		if (cachedPermissions == null) {
-			cachedPermissions = new HashMap<>();
+		Boolean hoisted = role.get(ROLE_HOISTED);
+		if (hoisted != null) {
+			roleManager = roleManager.setHoisted(hoisted);
+		}
+
+		Boolean mentionable = role.get(ROLE_MENTIONABLE);
+		if (mentionable != null) {
+			roleManager = roleManager.setMentionable(mentionable);
+		}
 
-			for (Permission permission : Permission.values()) {
-				cachedPermissions.put(permission.getName(), permission);
+		ClassInstance permissions = role.get(ROLE_PERMISSIONS);
+		if (permissions != null) {
+			roleManager = roleManager.setPermissions(Permissions.parseMask(interpreter, permissions));
+		}
+		return roleManager;
+	}
+
+	public static BotOptions parseMapAsOptions(Interpreter interpreter, ArucasMap map) {
+		MapSchema.Decoded decoded = OPTIONS.decode(interpreter, map);
+		BotOptions options = new BotOptions();
+		ArucasIterable intents = decoded.get(OPTIONS_INTENTS);
+		if (intents != null) {
+			EnumSet<GatewayIntent> parsed = EnumSet.noneOf(GatewayIntent.class);
+			for (ClassInstance intent : intents) {
+				parsed.add(BotOptions.parseIntent(intent.toString(interpreter)));
+			}
+			options.setIntents(parsed);
+		}
+
+		ArucasIterable cache = decoded.get(OPTIONS_CACHE);
+		if (cache != null) {
+			EnumSet<CacheFlag> parsed = EnumSet.noneOf(CacheFlag.class);
+			for (ClassInstance flag : cache) {
+				parsed.add(BotOptions.parseCacheFlag(flag.toString(interpreter)));
 			}
+			options.setCacheFlags(parsed);
 		}
 
-		for (ClassInstance permission : permissions) {
-			Permission listedPermission = cachedPermissions.get(permission.toString(interpreter));
-			if (listedPermission != null) {
-				roleAction = roleAction.setPermissions(listedPermission);
+		String memberCache = decoded.get(OPTIONS_MEMBER_CACHE);
+		if (memberCache != null) {
+			options.setMemberCachePolicy(BotOptions.parseMemberCachePolicy(memberCache));
+		}
+
+		ClassInstance chunking = decoded.get(OPTIONS_CHUNKING);
+		if (chunking != null) {
+			ArucasIterable servers = chunking.getPrimitive(IterableDef.class);
+			if (servers != null && chunking.getPrimitive(StringDef.class) == null) {
+				List<Long> ids = new ArrayList<>();
+				for (ClassInstance server : servers) {
+					ids.add(RuntimeError.wrap(() -> MiscUtil.parseSnowflake(server.toString(interpreter))));
+				}
+				options.setChunkingFilter(ChunkingFilter.include(ids.stream().mapToLong(Long::longValue).toArray()));
+			} else {
+				options.setChunkingFilter(BotOptions.parseChunkingFilter(chunking.toString(interpreter)));
 			}
 		}
-		roleAction.complete();
+
+		Boolean compression = decoded.get(OPTIONS_COMPRESSION);
+		if (compression != null) {
+			options.setCompression(compression);
+		}
+
+		Double largeThreshold = decoded.get(OPTIONS_LARGE_THRESHOLD);
+		if (largeThreshold != null) {
+			options.setLargeThreshold(largeThreshold.intValue());
+		}
+
+		Double eventPoolSize = decoded.get(OPTIONS_EVENT_POOL_SIZE);
+		if (eventPoolSize != null) {
+			options.setEventPoolSize(eventPoolSize.intValue());
+		}
+
+		Double shards = decoded.get(OPTIONS_SHARDS);
+		if (shards != null) {
+			options.setShardsTotal(shards.intValue());
+		}
+
+		ArucasList shardRange = decoded.get(OPTIONS_SHARD_RANGE);
+		if (shardRange != null) {
+			if (shardRange.size() != 2) {
+				throw new RuntimeError("Shard range must contain the first and last shard");
+			}
+			Double first = shardRange.get(0).getPrimitive(NumberDef.class);
+			Double last = shardRange.get(1).getPrimitive(NumberDef.class);
+			if (first == null || last == null) {
+				throw new RuntimeError("Shard range must only contain numbers");
+			}
+			options.setShardRange(first.intValue(), last.intValue());
+		}
+		return options;
+	}
+
+	public static EventSubscription parseMapAsSubscription(Interpreter interpreter, ArucasFunction function, ArucasMap map) {
+		MapSchema.Decoded decoded = SUBSCRIPTION.decode(interpreter, map);
+		String sequence = decoded.get(SUBSCRIPTION_SEQUENCE);
+		EventKey sequenceKey = sequence == null ? null : EventKey.fromName(sequence);
+		ArucasMap filter = decoded.get(SUBSCRIPTION_FILTER);
+		EventFilter eventFilter = filter == null ? null : parseMapAsFilter(interpreter, filter);
+		ArucasMap coalesce = decoded.get(SUBSCRIPTION_COALESCE);
+		EventCoalescer coalescer = coalesce == null ? null : parseMapAsCoalescer(interpreter, coalesce);
+		return new EventSubscription(new LocatedFunction(interpreter, function), sequenceKey, eventFilter, coalescer);
+	}
+
+	public static EventCoalescer parseMapAsCoalescer(Interpreter interpreter, ArucasMap map) {
+		MapSchema.Decoded decoded = COALESCE.decode(interpreter, map);
+		Boolean batch = decoded.get(COALESCE_BATCH);
+		return new EventCoalescer(
+			EventKey.fromName(decoded.get(COALESCE_KEY)),
+			decoded.get(COALESCE_WINDOW).longValue(),
+			batch != null && batch
+		);
+	}
+
+	public static EventFilter parseMapAsFilter(Interpreter interpreter, ArucasMap map) {
+		MapSchema.Decoded decoded = FILTER.decode(interpreter, map);
+		String regex = decoded.get(FILTER_REGEX);
+		Pattern pattern = null;
+		if (regex != null) {
+			try {
+				pattern = Pattern.compile(regex);
+			} catch (PatternSyntaxException e) {
+				throw new RuntimeError("Event filter has an invalid regex: " + e.getDescription());
+			}
+		}
+		return new EventFilter(
+			parseIds(interpreter, decoded.get(FILTER_SERVERS)),
+			parseIds(interpreter, decoded.get(FILTER_CHANNELS)),
+			decoded.get(FILTER_BOT),
+			decoded.get(FILTER_PREFIX),
+			pattern,
+			decoded.get(FILTER_ATTACHMENTS)
+		);
+	}
+
+	private static List<Long> parseIds(Interpreter interpreter, ArucasList ids) {
+		if (ids == null) {
+			return null;
+		}
+		List<Long> parsed = new ArrayList<>();
+		for (ClassInstance id : ids) {
+			parsed.add(RuntimeError.wrap(() -> MiscUtil.parseSnowflake(id.toString(interpreter))));
+		}
+		return parsed;
 	}
 
-	public static SlashCommandData parseMapAsCommand(Interpreter interpreter, Map<String, List<LocatedFunction>> commandMap, ArucasMap map) {
-		String name = getFieldInMap(map, interpreter, "name", StringDef.class);
-		String description = getFieldInMap(map, interpreter, "description", StringDef.class);
-		if (name == null || description == null) {
-			throw new RuntimeException("Command must have name and a description");
+	public static SlashCommandData parseMapAsCommand(Interpreter interpreter, Map<String, CommandNode> nodes, ArucasMap map) {
+		MapSchema.Decoded decoded = COMMAND.decode(interpreter, map);
+		String name = decoded.get(COMMAND_NAME);
+		SlashCommandData slashCommandData = Commands.slash(name, decoded.get(COMMAND_DESCRIPTION));
+		ArucasFunction command = decoded.get(COMMAND_FUNCTION);
+		ArucasMap next = decoded.get(COMMAND_NEXT);
+		ArucasList options = decoded.get(COMMAND_OPTIONS);
+		ArucasList subcommands = decoded.get(COMMAND_SUBCOMMANDS);
+		ArucasList groups = decoded.get(COMMAND_GROUPS);
+
+		if (subcommands != null || groups != null) {
+			if (command != null || next != null || options != null) {
+				throw new RuntimeException("Command '%s' cannot have subcommands and its own command or options".formatted(name));
+			}
+			if (subcommands != null) {
+				for (ClassInstance subcommand : subcommands) {
+					slashCommandData.addSubcommands(parseSubcommand(interpreter, nodes, name, null, asMap(subcommand)));
+				}
+			}
+			if (groups != null) {
+				for (ClassInstance group : groups) {
+					slashCommandData.addSubcommandGroups(parseSubcommandGroup(interpreter, nodes, name, asMap(group)));
+				}
+			}
+			return slashCommandData;
 		}
-		SlashCommandData slashCommandData = Commands.slash(name, description);
-		List<LocatedFunction> functions = new ArrayList<>();
-		commandMap.put(name, functions);
-		ArucasFunction command = getFieldInMap(map, interpreter, "command", FunctionDef.class);
-		functions.add(0, new LocatedFunction(interpreter, command));
-		ArucasMap next = getFieldInMap(map, interpreter, "next", MapDef.class);
+
 		if (next != null) {
-			slashCommandData = commandOption(Commands.slash(name, description), functions, interpreter, next, 1);
+			if (options != null) {
+				throw new RuntimeException("Command '%s' cannot have both 'next' and 'options'".formatted(name));
+			}
+			List<LocatedFunction> functions = new ArrayList<>();
+			functions.add(command == null ? null : new LocatedFunction(interpreter, command));
+			slashCommandData = commandOption(slashCommandData, functions, interpreter, next, 1);
+			nodes.put(name, CommandNode.chained(name, functions));
+			return slashCommandData;
 		}
+
+		if (command == null) {
+			throw new RuntimeException("Command '%s' must have a command".formatted(name));
+		}
+		List<OptionData> optionData = parseOptions(interpreter, options);
+		slashCommandData.addOptions(optionData);
+		nodes.put(name, CommandNode.of(name, new LocatedFunction(interpreter, command), getOptionNames(optionData)));
 		return slashCommandData;
 	}
 
-	private static SlashCommandData commandOption(SlashCommandData slashCommandData, List<LocatedFunction> commandList, Interpreter interpreter, ArucasMap map, int depth) {
-		if (depth > 25) {
-			throw new RuntimeException("Slash command went too deep");
+	private static SubcommandGroupData parseSubcommandGroup(Interpreter interpreter, Map<String, CommandNode> nodes, String command, ArucasMap map) {
+		MapSchema.Decoded group = GROUP.decode(interpreter, map);
+		String name = group.get(GROUP_NAME);
+		SubcommandGroupData groupData = new SubcommandGroupData(name, group.get(GROUP_DESCRIPTION));
+		for (ClassInstance subcommand : group.get(GROUP_SUBCOMMANDS)) {
+			groupData.addSubcommands(parseSubcommand(interpreter, nodes, command, name, asMap(subcommand)));
 		}
-		String option = getFieldInMap(map, interpreter, "type", StringDef.class);
-		if (option == null) {
-			throw new RuntimeException("Command must include option type");
+		return groupData;
+	}
+
+	private static SubcommandData parseSubcommand(Interpreter interpreter, Map<String, CommandNode> nodes, String command, String group, ArucasMap map) {
+		MapSchema.Decoded subcommand = SUBCOMMAND.decode(interpreter, map);
+		String name = subcommand.get(SUBCOMMAND_NAME);
+		List<OptionData> optionData = parseOptions(interpreter, subcommand.get(SUBCOMMAND_OPTIONS));
+		LocatedFunction function = new LocatedFunction(interpreter, subcommand.get(SUBCOMMAND_FUNCTION));
+		nodes.put(CommandTree.getPath(command, group, name), CommandNode.of(command, function, getOptionNames(optionData)));
+		return new SubcommandData(name, subcommand.get(SUBCOMMAND_DESCRIPTION)).addOptions(optionData);
+	}
+
+	private static List<OptionData> parseOptions(Interpreter interpreter, ArucasList options) {
+		List<OptionData> optionData = new ArrayList<>();
+		if (options != null) {
+			for (ClassInstance option : options) {
+				MapSchema.Decoded decoded = OPTION.decode(interpreter, asMap(option));
+				OptionType optionType = parseOptionType(decoded.get(OPTION_TYPE));
+				boolean required = decoded.get(OPTION_REQUIRED) == Boolean.TRUE;
+				optionData.add(new OptionData(optionType, decoded.get(OPTION_NAME), decoded.get(OPTION_DESCRIPTION), required));
+			}
+		}
+		return optionData;
+	}
+
+	private static List<String> getOptionNames(List<OptionData> optionData) {
+		return optionData.stream().map(OptionData::getName).toList();
+	}
+
+	private static ArucasMap asMap(ClassInstance instance) {
+		ArucasMap map = instance.getPrimitive(MapDef.class);
+		if (map == null) {
+			throw new RuntimeException("Expected command options and subcommands to be maps");
 		}
-		OptionType optionType = switch (option.toLowerCase()) {
+		return map;
+	}
+
+	private static OptionType parseOptionType(String option) {
+		return switch (option.toLowerCase()) {
 			case "string" -> OptionType.STRING;
 			case "integer" -> OptionType.INTEGER;
 			case "number" -> OptionType.NUMBER;
@@ -182,18 +561,21 @@ public class DiscordUtils {
 			case "user" -> OptionType.USER;
 			case "channel" -> OptionType.CHANNEL;
 			case "attachment" -> OptionType.ATTACHMENT;
-			default -> throw new RuntimeException("Invalid option");
+			default -> throw new RuntimeException("'%s' is an invalid option type".formatted(option));
 		};
-		String name = getFieldInMap(map, interpreter, "name", StringDef.class);
-		String description = getFieldInMap(map, interpreter, "description", StringDef.class);
-		if (name == null || description == null) {
-			throw new RuntimeException("Command must have name and a description");
-		}
-		boolean required = getFieldInMap(map, interpreter, "required", BooleanDef.class) == Boolean.TRUE;
-		slashCommandData = slashCommandData.addOption(optionType, name, description, required);
-		ArucasFunction function = getFieldInMap(map, interpreter, "command", FunctionDef.class);
+	}
+
+	private static SlashCommandData commandOption(SlashCommandData slashCommandData, List<LocatedFunction> commandList, Interpreter interpreter, ArucasMap map, int depth) {
+		if (depth > 25) {
+			throw new RuntimeException("Slash command went too deep");
+		}
+		MapSchema.Decoded decoded = OPTION.decode(interpreter, map);
+		OptionType optionType = parseOptionType(decoded.get(OPTION_TYPE));
+		boolean required = decoded.get(OPTION_REQUIRED) == Boolean.TRUE;
+		slashCommandData = slashCommandData.addOption(optionType, decoded.get(OPTION_NAME), decoded.get(OPTION_DESCRIPTION), required);
+		ArucasFunction function = decoded.get(OPTION_FUNCTION);
 		commandList.add(depth, function != null ? new LocatedFunction(interpreter, function) : null);
-		ArucasMap next = getFieldInMap(map, interpreter, "next", MapDef.class);
+		ArucasMap next = decoded.get(OPTION_NEXT);
 		if (next != null) {
 			slashCommandData = commandOption(slashCommandData, commandList, interpreter, next, depth + 1);
 		}
@@ -209,7 +591,7 @@ public class DiscordUtils {
 		return parameters;
 	}
 
-	private static ClassInstance parseMapping(Interpreter context, OptionMapping mapping) {
+	public static ClassInstance parseMapping(Interpreter context, OptionMapping mapping) {
 		return context.convertValue(switch (mapping.getType()) {
 			case INTEGER, NUMBER -> mapping.getAsDouble();
 			case BOOLEAN -> mapping.getAsBoolean();
@@ -226,14 +608,11 @@ public class DiscordUtils {
 		});
 	}
 
+	// Every call gets its own branch, a branch's scope and call stack aren't known to be safe to reuse
 	public record LocatedFunction(Interpreter interpreter, ArucasFunction function) {
-		public LocatedFunction(Interpreter interpreter, ArucasFunction function) {
-			this.interpreter = interpreter.branch();
-			this.function = function;
-		}
-
-		public Interpreter interpreter() {
-			return this.interpreter.branch();
+		public ClassInstance invoke(Function<Interpreter, List<ClassInstance>> arguments) {
+			Interpreter branch = this.interpreter.branch();
+			return this.function.invoke(branch, arguments.apply(branch));
 		}
 	}
 }
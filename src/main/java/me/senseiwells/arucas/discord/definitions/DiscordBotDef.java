@@ -4,24 +4,35 @@ import kotlin.Unit;
 import me.senseiwells.arucas.api.docs.ClassDoc;
 import me.senseiwells.arucas.api.docs.ConstructorDoc;
 import me.senseiwells.arucas.api.docs.FunctionDoc;
+import me.senseiwells.arucas.builtin.BooleanDef;
+import me.senseiwells.arucas.builtin.FileDef;
 import me.senseiwells.arucas.builtin.FunctionDef;
 import me.senseiwells.arucas.builtin.MapDef;
+import me.senseiwells.arucas.builtin.NumberDef;
 import me.senseiwells.arucas.builtin.StringDef;
 import me.senseiwells.arucas.classes.ClassInstance;
 import me.senseiwells.arucas.classes.CreatableDefinition;
 import me.senseiwells.arucas.core.Interpreter;
 import me.senseiwells.arucas.discord.DiscordUtils;
+import me.senseiwells.arucas.discord.impl.BotOptions;
 import me.senseiwells.arucas.discord.impl.DiscordBot;
+import me.senseiwells.arucas.discord.impl.DiscordMetrics;
+import me.senseiwells.arucas.discord.impl.HandlerExecutor;
+import me.senseiwells.arucas.discord.impl.RestScheduler;
 import me.senseiwells.arucas.exceptions.RuntimeError;
 import me.senseiwells.arucas.utils.*;
 import me.senseiwells.arucas.utils.impl.ArucasMap;
+import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.OnlineStatus;
 import net.dv8tion.jda.api.entities.Activity;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.sharding.ShardManager;
 
+import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 import static me.senseiwells.arucas.discord.DiscordAPI.*;
 import static me.senseiwells.arucas.utils.Util.Types.*;
@@ -40,7 +51,8 @@ public class DiscordBotDef extends CreatableDefinition<DiscordBot> {
 	@Override
 	public List<ConstructorFunction> defineConstructors() {
 		return List.of(
-			ConstructorFunction.of(1, this::construct)
+			ConstructorFunction.of(1, this::construct),
+			ConstructorFunction.of(2, this::constructWithOptions)
 		);
 	}
 
@@ -53,11 +65,29 @@ public class DiscordBotDef extends CreatableDefinition<DiscordBot> {
 			MemberFunction.of("getStatus", this::getStatus),
 			MemberFunction.of("getUserId", this::getUserId),
 			MemberFunction.of("registerEvent", 2, this::registerEvent),
+			MemberFunction.of("registerEvent", 3, this::registerEventWithOptions),
 			MemberFunction.of("addCommand", 1, this::addCommand),
 			MemberFunction.of("removeCommand", 1, this::removeCommand),
+			MemberFunction.of("addTextCommand", 3, this::addTextCommand),
+			MemberFunction.of("removeTextCommand", 2, this::removeTextCommand),
 			MemberFunction.of("stop", this::stop),
 			MemberFunction.of("getChannel", 1, this::getChannel),
-			MemberFunction.of("getServer", 1, this::getServer)
+			MemberFunction.of("getServer", 1, this::getServer),
+			MemberFunction.of("setHandlerPool", 3, this::setHandlerPool),
+			MemberFunction.of("getHandlerStats", this::getHandlerStats),
+			MemberFunction.of("setQueueSideEffects", 1, this::setQueueSideEffects),
+			MemberFunction.of("onRestError", 1, this::onRestError),
+			MemberFunction.of("setMessageCache", 2, this::setMessageCache),
+			MemberFunction.of("getShardStats", this::getShardStats),
+			MemberFunction.of("setRestLane", 2, this::setRestLane),
+			MemberFunction.of("getRestStats", this::getRestStats),
+			MemberFunction.of("getMetrics", this::getMetrics),
+			MemberFunction.of("runBulk", 1, this::runBulk),
+			MemberFunction.of("setCommandSync", 1, this::setCommandSync),
+			MemberFunction.of("syncCommands", this::syncCommands),
+			MemberFunction.of("syncCommands", 1, this::syncCommandsWithFile),
+			MemberFunction.of("syncServerCommands", 1, this::syncServerCommands),
+			MemberFunction.of("syncServerCommands", 2, this::syncServerCommandsWithFile)
 		);
 	}
 
@@ -74,6 +104,53 @@ public class DiscordBotDef extends CreatableDefinition<DiscordBot> {
 		return null;
 	}
 
+	@ConstructorDoc(
+		desc = {
+			"This creates a new DiscordBot instance with options to reduce what the bot caches",
+			"In the options map you can have the following keys:",
+			"'intents' as a List of Strings, the gateway intents, defaults to Discord's default intents,",
+			"'cache' as a List of Strings, the cache flags to enable, defaults to none,",
+			"'memberCache' as String, either 'none', 'all', 'online', 'voice', 'owner', 'pending',",
+			"'boosters', or 'default', defaults to 'none', note that kicking needs the member to be cached,",
+			"'chunking' as String, either 'none' or 'all', or a List of server ids, defaults to 'none',",
+			"'eventPoolSize' as Number, the threads that handle gateway events, defaults to JDA's pool,",
+			"more than 1 lets events be handled out of the order they were received, including sequenced events,",
+			"'largeThreshold' as Number, between 50 and 250, defaults to 50,",
+			"'compression' as Boolean, whether the gateway is compressed, defaults to true,",
+			"'shards' as Number, the total number of shards, -1 for Discord's recommended count,",
+			"and 'shardRange' as List of the first and last shard this bot should run,",
+			"if either shard option is given the bot is sharded, events and commands work the same across shards"
+		},
+		params = {
+			STRING, "token", "The token of the bot",
+			MAP, "options", "The options of the bot"
+		},
+		examples = """
+		new DiscordBot('token', {
+		    "intents": ["GUILD_MESSAGES", "MESSAGE_CONTENT"],
+		    "cache": [],
+		    "memberCache": "none",
+		    "chunking": "none"
+		});
+		"""
+	)
+	public Unit constructWithOptions(Arguments arguments) {
+		ClassInstance instance = arguments.next();
+		String token = arguments.nextPrimitive(StringDef.class);
+		ArucasMap map = arguments.nextPrimitive(MapDef.class);
+		BotOptions options = DiscordUtils.parseMapAsOptions(arguments.getInterpreter(), map);
+		DiscordBot bot;
+		if (options.isSharded()) {
+			ShardManager shardManager = RuntimeError.wrap(() -> options.createShardBuilder(token).build());
+			bot = new DiscordBot(shardManager, arguments.getInterpreter());
+		} else {
+			JDA jda = RuntimeError.wrap(() -> options.createBuilder(token).build());
+			bot = new DiscordBot(jda, arguments.getInterpreter());
+		}
+		instance.setPrimitive(this, bot);
+		return null;
+	}
+
 	@FunctionDoc(
 		name = "setActivity",
 		desc = "This sets the activity of the bot",
@@ -94,7 +171,7 @@ public class DiscordBotDef extends CreatableDefinition<DiscordBot> {
 			case "competing" -> Activity.competing(activityMessage);
 			default -> throw new RuntimeException("'%s' is an invalid activity".formatted(activityString));
 		};
-		bot.getJda().getPresence().setActivity(activity);
+		bot.setActivity(activity);
 		return null;
 	}
 
@@ -106,7 +183,7 @@ public class DiscordBotDef extends CreatableDefinition<DiscordBot> {
 	)
 	public String getActivity(Arguments arguments) {
 		DiscordBot bot = arguments.nextPrimitive(this);
-		Activity activity = bot.getJda().getPresence().getActivity();
+		Activity activity = bot.getActivity();
 		return activity == null ? null : activity.getType().name() + ": " + activity.getName();
 	}
 
@@ -123,7 +200,7 @@ public class DiscordBotDef extends CreatableDefinition<DiscordBot> {
 		if (onlineStatus == OnlineStatus.UNKNOWN) {
 			throw new RuntimeException("'%s' is an invalid status".formatted(status));
 		}
-		bot.getJda().getPresence().setStatus(onlineStatus);
+		bot.setStatus(onlineStatus);
 		return null;
 	}
 
@@ -134,7 +211,7 @@ public class DiscordBotDef extends CreatableDefinition<DiscordBot> {
 		examples = "bot.getStatus()"
 	)
 	public String getStatus(Arguments arguments) {
-		return arguments.nextPrimitive(this).getJda().getPresence().getStatus().getKey();
+		return arguments.nextPrimitive(this).getStatus().getKey();
 	}
 
 	@FunctionDoc(
@@ -144,12 +221,16 @@ public class DiscordBotDef extends CreatableDefinition<DiscordBot> {
 		examples = "bot.getUserId()"
 	)
 	public String getUserId(Arguments arguments) {
-		return DiscordUtils.getId(arguments.nextPrimitive(this).getJda().getSelfUser());
+		return DiscordUtils.getId(arguments.nextPrimitive(this).getSelfUser());
 	}
 
 	@FunctionDoc(
 		name = "registerEvent",
-		desc = "This registers a function to be called when an event is triggered",
+		desc = {
+			"This registers a function to be called when an event is triggered",
+			"The event name can also be a supertype of events, for example 'GenericMessageEvent'",
+			"will be called for every message event"
+		},
 		params = {
 			STRING, "eventName", "the name of the event",
 			FUNCTION, "function", "the function to be called"
@@ -164,13 +245,73 @@ public class DiscordBotDef extends CreatableDefinition<DiscordBot> {
 		return null;
 	}
 
+	@FunctionDoc(
+		name = "registerEvent",
+		desc = {
+			"This registers a function to be called when an event is triggered with some options",
+			"In the options map you can have the following keys:",
+			"'sequence' as String, either 'channel', 'server', 'user', or 'message', events with the same key",
+			"will be handled one at a time in the order they were received, different keys are handled in parallel,",
+			"the order is only kept if the bot's 'eventPoolSize' is left unset or is 1",
+			"'filter' as Map, the function is only called for events that match every key in the filter,",
+			"events that don't have the value being checked never match, the filter can have:",
+			"'servers' and 'channels' as Lists of ids, 'bot' as Boolean for whether the user is a bot,",
+			"'prefix' and 'regex' as Strings that the raw message content must start with or contain a match of,",
+			"and 'attachments' as Boolean for whether the message has attachments",
+			"'coalesce' as Map, events with the same 'key' ('channel', 'server', 'user', or 'message')",
+			"are held for 'window' milliseconds after the first one, then the function is called once",
+			"with the latest event, or with a list of every event if 'batch' is true,",
+			"a batch is handed on early once it has 100 events"
+		},
+		params = {
+			STRING, "eventName", "the name of the event",
+			FUNCTION, "function", "the function to be called",
+			MAP, "options", "the options for the event"
+		},
+		examples = """
+		bot.registerEvent('MessageReceivedEvent', function(event) {
+		    // Messages in the same channel are handled in order
+		}, {
+		    "sequence": "channel"
+		});
+
+		bot.registerEvent('MessageReceivedEvent', function(event) {
+		    // Only commands from users in one channel get here
+		}, {
+		    "filter": {
+		        "channels": ["123456789012345678"],
+		        "bot": false,
+		        "prefix": "!"
+		    }
+		});
+
+		bot.registerEvent('MessageUpdateEvent', function(event) {
+		    // Only the final edit within a second is handled
+		}, {
+		    "coalesce": {"key": "message", "window": 1000}
+		});
+		"""
+	)
+	public Void registerEventWithOptions(Arguments arguments) {
+		DiscordBot bot = arguments.nextPrimitive(this);
+		String name = arguments.nextConstant();
+		ArucasFunction callback = arguments.nextPrimitive(FunctionDef.class);
+		ArucasMap options = arguments.nextPrimitive(MapDef.class);
+		bot.registerEvent(name, DiscordUtils.parseMapAsSubscription(arguments.getInterpreter(), callback, options));
+		return null;
+	}
+
 	@FunctionDoc(
 		name = "addCommand",
 		desc = {
 			"This adds a slash command to the bot",
 			"Each command must have a name and description, it can have a command, define the next subcommand with 'next'",
 			"and subcommands must have the argument type, and can have whether it is required or not",
-			"types: 'string', 'integer', 'number', 'boolean', 'user', 'channel', and 'attachment'"
+			"types: 'string', 'integer', 'number', 'boolean', 'user', 'channel', and 'attachment'",
+			"Instead of 'next' a command can list its 'options', the command is then always called with",
+			"every option in the order they were declared, options that weren't given are null",
+			"A command can instead have 'subcommands' and 'groups', each group has a name, description, and 'subcommands',",
+			"each subcommand has a name, description, command, and optionally 'options'"
 		},
 		params = {MAP, "commandMap", "the command map"},
 		examples = """
@@ -192,6 +333,21 @@ public class DiscordBotDef extends CreatableDefinition<DiscordBot> {
 		        }
 		    }
 		});
+		bot.addCommand({
+		    "name": "role",
+		    "description": "Manages roles",
+		    "subcommands": [{
+		        "name": "give",
+		        "description": "Gives a role",
+		        "options": [
+		            {"name": "user", "description": "The user", "type": "user", "required": true},
+		            {"name": "reason", "description": "The reason", "type": "string"}
+		        ],
+		        "command": fun(event, user, reason) {
+		            // reason is null if it wasn't given
+		        }
+		    }]
+		});
 		"""
 	)
 	public Void addCommand(Arguments arguments) {
@@ -214,13 +370,59 @@ public class DiscordBotDef extends CreatableDefinition<DiscordBot> {
 		return null;
 	}
 
+	@FunctionDoc(
+		name = "addTextCommand",
+		desc = {
+			"This adds a text command, a message that starts with the prefix followed by the name",
+			"calls the function with the event and a list of the arguments after the name,",
+			"arguments are split on whitespace and double quotes keep words together",
+			"Messages from bots and messages that aren't commands are ignored without calling any script,",
+			"when names overlap the longest match is used, the prefix and name cannot contain whitespace"
+		},
+		params = {
+			STRING, "prefix", "the prefix of the command",
+			STRING, "name", "the name of the command",
+			FUNCTION, "function", "the function to be called with the event and arguments"
+		},
+		examples = """
+		bot.addTextCommand('!', 'kick', fun(event, args) {
+		    // '!kick Sensei "being mean"' gives ['Sensei', 'being mean']
+		});
+		"""
+	)
+	public Void addTextCommand(Arguments arguments) {
+		DiscordBot bot = arguments.nextPrimitive(this);
+		String prefix = arguments.nextPrimitive(StringDef.class);
+		String name = arguments.nextPrimitive(StringDef.class);
+		ArucasFunction function = arguments.nextPrimitive(FunctionDef.class);
+		bot.addTextCommand(arguments.getInterpreter(), prefix, name, function);
+		return null;
+	}
+
+	@FunctionDoc(
+		name = "removeTextCommand",
+		desc = "This removes a text command from the bot",
+		params = {
+			STRING, "prefix", "the prefix of the command",
+			STRING, "name", "the name of the command"
+		},
+		returns = {BOOLEAN, "whether the command was removed"},
+		examples = "bot.removeTextCommand('!', 'kick');"
+	)
+	public Boolean removeTextCommand(Arguments arguments) {
+		DiscordBot bot = arguments.nextPrimitive(this);
+		String prefix = arguments.nextPrimitive(StringDef.class);
+		String name = arguments.nextPrimitive(StringDef.class);
+		return bot.removeTextCommand(prefix, name);
+	}
+
 	@FunctionDoc(
 		name = "stop",
 		desc = "This stops the bot",
 		examples = "bot.stop()"
 	)
 	public Void stop(Arguments arguments) {
-		arguments.nextPrimitive(this).getJda().shutdown();
+		arguments.nextPrimitive(this).shutdown();
 		return null;
 	}
 
@@ -234,7 +436,7 @@ public class DiscordBotDef extends CreatableDefinition<DiscordBot> {
 	public MessageChannel getChannel(Arguments arguments) {
 		DiscordBot bot = arguments.nextPrimitive(this);
 		String id = arguments.nextPrimitive(StringDef.class);
-		MessageChannel messageChannel = bot.getJda().getChannelById(MessageChannel.class, id);
+		MessageChannel messageChannel = bot.getChannelById(id);
 		if (messageChannel == null) {
 			throw new RuntimeError("Channel with id '%s' couldn't be found".formatted(id));
 		}
@@ -251,7 +453,276 @@ public class DiscordBotDef extends CreatableDefinition<DiscordBot> {
 	public Guild getServer(Arguments arguments) {
 		DiscordBot bot = arguments.nextPrimitive(this);
 		String id = arguments.nextPrimitive(StringDef.class);
-		Guild guild = bot.getJda().getGuildById(id);
+		return this.getServer(bot, id);
+	}
+
+	@FunctionDoc(
+		name = "setHandlerPool",
+		desc = {
+			"This configures the pool that runs event and command handlers",
+			"When the queue is full the overflow policy decides what happens to new events:",
+			"'block' waits for space, 'drop_oldest' discards the oldest queued event,",
+			"'drop_newest' discards the new event, and 'reject' discards and counts it as rejected"
+		},
+		params = {
+			NUMBER, "workers", "the maximum number of handlers running at once",
+			NUMBER, "queueDepth", "the maximum number of events waiting for a handler",
+			STRING, "policy", "the overflow policy"
+		},
+		examples = "bot.setHandlerPool(4, 500, 'drop_oldest');"
+	)
+	public Void setHandlerPool(Arguments arguments) {
+		DiscordBot bot = arguments.nextPrimitive(this);
+		int workers = arguments.nextPrimitive(NumberDef.class).intValue();
+		int queueDepth = arguments.nextPrimitive(NumberDef.class).intValue();
+		String policy = arguments.nextPrimitive(StringDef.class);
+		bot.getHandlers().configure(workers, queueDepth, HandlerExecutor.OverflowPolicy.fromName(policy));
+		return null;
+	}
+
+	@FunctionDoc(
+		name = "getHandlerStats",
+		desc = {
+			"This gets the statistics of the handler pool, the map contains the keys:",
+			"'workers', 'active', 'queued', 'queueCapacity', 'completed', 'dropped', 'rejected', and 'policy'"
+		},
+		returns = {MAP, "the statistics of the handler pool"},
+		examples = "bot.getHandlerStats();"
+	)
+	public Map<String, Object> getHandlerStats(Arguments arguments) {
+		DiscordBot bot = arguments.nextPrimitive(this);
+		return bot.getHandlers().getStats();
+	}
+
+	@FunctionDoc(
+		name = "setQueueSideEffects",
+		desc = {
+			"This sets whether requests that don't return anything are sent without waiting for them,",
+			"this applies to adding and removing reactions, deleting and pinning messages,",
+			"marking typing and replying to events. Failures are passed to the 'onRestError' function"
+		},
+		params = {BOOLEAN, "queue", "true to send without waiting, false to wait for each request"},
+		examples = "bot.setQueueSideEffects(true);"
+	)
+	public Void setQueueSideEffects(Arguments arguments) {
+		DiscordBot bot = arguments.nextPrimitive(this);
+		boolean queue = arguments.nextPrimitive(BooleanDef.class);
+		bot.setQueueSideEffects(queue);
+		return null;
+	}
+
+	@FunctionDoc(
+		name = "onRestError",
+		desc = "This sets the function that is called when a request that was sent without waiting fails",
+		params = {FUNCTION, "function", "the function to be called with the error message"},
+		examples = "bot.onRestError(fun(error) { print(error); });"
+	)
+	public Void onRestError(Arguments arguments) {
+		DiscordBot bot = arguments.nextPrimitive(this);
+		ArucasFunction callback = arguments.nextPrimitive(FunctionDef.class);
+		bot.setRestErrorHandler(arguments.getInterpreter(), callback);
+		return null;
+	}
+
+	@FunctionDoc(
+		name = "setMessageCache",
+		desc = {
+			"This configures the cache of received messages, which is used when getting",
+			"messages by id and for the messages of reaction events, by default it holds",
+			"1000 messages for 15 minutes, a size of 0 disables the cache"
+		},
+		params = {
+			NUMBER, "size", "the maximum number of messages to keep",
+			NUMBER, "seconds", "how long a message is kept for"
+		},
+		examples = "bot.setMessageCache(5000, 3600);"
+	)
+	public Void setMessageCache(Arguments arguments) {
+		DiscordBot bot = arguments.nextPrimitive(this);
+		int size = arguments.nextPrimitive(NumberDef.class).intValue();
+		double seconds = arguments.nextPrimitive(NumberDef.class);
+		bot.getMessageCache().configure(size, (long) (seconds * 1000));
+		return null;
+	}
+
+	@FunctionDoc(
+		name = "getShardStats",
+		desc = {
+			"This gets statistics for each shard of the bot, a bot that isn't sharded has a single shard,",
+			"each map contains 'shard', 'status', 'ping' (gateway latency in milliseconds), 'servers',",
+			"'events' (total events received) and 'eventRate' (events per second over the last few seconds)"
+		},
+		returns = {LIST, "a list of maps, one for each shard"},
+		examples = "bot.getShardStats();"
+	)
+	public List<Map<String, Object>> getShardStats(Arguments arguments) {
+		return arguments.nextPrimitive(this).getShardStats();
+	}
+
+	@FunctionDoc(
+		name = "setRestLane",
+		desc = {
+			"This sets how many requests a lane can have in flight at once, requests are sent",
+			"in the 'interactive' lane (16 by default) unless they are made inside 'runBulk'",
+			"or are deleting messages, these use the 'bulk' lane (2 by default), bulk requests",
+			"only start when there are no interactive requests waiting, a single kind of request can",
+			"only use a quarter of a lane, replies to interactions don't use a lane and are sent immediately"
+		},
+		params = {
+			STRING, "lane", "the lane, either 'interactive' or 'bulk'",
+			NUMBER, "concurrency", "the maximum number of requests in flight"
+		},
+		examples = "bot.setRestLane('bulk', 1);"
+	)
+	public Void setRestLane(Arguments arguments) {
+		DiscordBot bot = arguments.nextPrimitive(this);
+		String lane = arguments.nextPrimitive(StringDef.class);
+		int concurrency = arguments.nextPrimitive(NumberDef.class).intValue();
+		bot.getRestScheduler().setConcurrency(RestScheduler.Lane.fromName(lane), concurrency);
+		return null;
+	}
+
+	@FunctionDoc(
+		name = "getRestStats",
+		desc = {
+			"This gets the statistics of the requests the bot has sent, the map contains 'lanes'",
+			"which maps each lane to its 'concurrency', 'running', and 'waiting' requests, and 'routes'",
+			"which maps each operation, for example 'sendMessage', to its 'requests', 'errors',",
+			"'averageWait', 'maxWait', 'averageLatency', and 'maxLatency' in milliseconds,",
+			"the wait is the time spent in the lane and the latency includes Discord's rate limits"
+		},
+		returns = {MAP, "the statistics of the requests"},
+		examples = "bot.getRestStats();"
+	)
+	public Map<String, Object> getRestStats(Arguments arguments) {
+		return arguments.nextPrimitive(this).getRestScheduler().getStats();
+	}
+
+	@FunctionDoc(
+		name = "getMetrics",
+		desc = {
+			"This gets the metrics of the bot, these include event counts, handler and request latencies,",
+			"pending work, and the gateway ping history"
+		},
+		returns = {DISCORD_METRICS, "the metrics of the bot"},
+		examples = """
+		metrics = bot.getMetrics();
+		print(metrics.getHandlerStats().get('latency').get('p99'));
+		"""
+	)
+	public DiscordMetrics getMetrics(Arguments arguments) {
+		return arguments.nextPrimitive(this).getMetrics();
+	}
+
+	@FunctionDoc(
+		name = "runBulk",
+		desc = {
+			"This calls the function and any requests it makes are sent in the 'bulk' lane,",
+			"so they don't delay replies to users, replies to interactions are always sent immediately,",
+			"this only applies to requests made on the same thread as the function"
+		},
+		params = {FUNCTION, "function", "the function to be called"},
+		returns = {OBJECT, "the value returned by the function"},
+		examples = """
+		bot.runBulk(fun() {
+		    foreach (channel : channels) {
+		        channel.sendMessage('Announcement!');
+		    }
+		});
+		"""
+	)
+	public ClassInstance runBulk(Arguments arguments) {
+		arguments.nextPrimitive(this);
+		ArucasFunction function = arguments.nextPrimitive(FunctionDef.class);
+		Interpreter interpreter = arguments.getInterpreter();
+		return RestScheduler.runIn(RestScheduler.Lane.BULK, () -> function.invoke(interpreter, List.of()));
+	}
+
+	@FunctionDoc(
+		name = "setCommandSync",
+		desc = {
+			"This sets whether commands are batched, when enabled 'addCommand' and 'removeCommand'",
+			"only change the bot's handlers and the commands are pushed to Discord by 'syncCommands'"
+		},
+		params = {BOOLEAN, "enabled", "whether commands should be batched"},
+		examples = "bot.setCommandSync(true);"
+	)
+	public Void setCommandSync(Arguments arguments) {
+		DiscordBot bot = arguments.nextPrimitive(this);
+		boolean enabled = arguments.nextPrimitive(BooleanDef.class);
+		bot.setCommandSync(enabled);
+		return null;
+	}
+
+	@FunctionDoc(
+		name = "syncCommands",
+		desc = {
+			"This pushes every added command to Discord in a single request,",
+			"this replaces all of the bot's global commands, it is skipped if the commands haven't changed since the last sync",
+			"Commands added before sync was enabled are included so they aren't removed"
+		},
+		returns = {BOOLEAN, "whether the commands were pushed"},
+		examples = "bot.syncCommands();"
+	)
+	public Boolean syncCommands(Arguments arguments) {
+		return arguments.nextPrimitive(this).syncCommands(null, null);
+	}
+
+	@FunctionDoc(
+		name = "syncCommands",
+		desc = {
+			"This pushes every added command to Discord in a single request,",
+			"the hash of the pushed commands is saved to the file so the request",
+			"can be skipped on the next start if the commands haven't changed"
+		},
+		params = {FILE, "hashFile", "the file to store the command hashes in"},
+		returns = {BOOLEAN, "whether the commands were pushed"},
+		examples = "bot.syncCommands(new File('commands.properties'));"
+	)
+	public Boolean syncCommandsWithFile(Arguments arguments) {
+		DiscordBot bot = arguments.nextPrimitive(this);
+		File hashFile = arguments.nextPrimitive(FileDef.class);
+		return bot.syncCommands(null, hashFile);
+	}
+
+	@FunctionDoc(
+		name = "syncServerCommands",
+		desc = {
+			"This pushes every added command to a single server, this is useful when developing",
+			"as server commands update immediately, it is skipped if the commands haven't changed since the last sync"
+		},
+		params = {STRING, "serverId", "the id of the server"},
+		returns = {BOOLEAN, "whether the commands were pushed"},
+		examples = "bot.syncServerCommands('12345678901234567890123456789012');"
+	)
+	public Boolean syncServerCommands(Arguments arguments) {
+		DiscordBot bot = arguments.nextPrimitive(this);
+		String id = arguments.nextPrimitive(StringDef.class);
+		return bot.syncCommands(this.getServer(bot, id), null);
+	}
+
+	@FunctionDoc(
+		name = "syncServerCommands",
+		desc = {
+			"This pushes every added command to a single server, the hash of the",
+			"pushed commands is saved to the file so the request can be skipped if they haven't changed"
+		},
+		params = {
+			STRING, "serverId", "the id of the server",
+			FILE, "hashFile", "the file to store the command hashes in"
+		},
+		returns = {BOOLEAN, "whether the commands were pushed"},
+		examples = "bot.syncServerCommands('12345678901234567890123456789012', new File('commands.properties'));"
+	)
+	public Boolean syncServerCommandsWithFile(Arguments arguments) {
+		DiscordBot bot = arguments.nextPrimitive(this);
+		String id = arguments.nextPrimitive(StringDef.class);
+		File hashFile = arguments.nextPrimitive(FileDef.class);
+		return bot.syncCommands(this.getServer(bot, id), hashFile);
+	}
+
+	private Guild getServer(DiscordBot bot, String id) {
+		Guild guild = bot.getGuildById(id);
 		if (guild == null) {
 			throw new RuntimeError("Server with id '%s' couldn't be found".formatted(id));
 		}
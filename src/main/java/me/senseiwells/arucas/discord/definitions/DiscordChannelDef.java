@@ -3,25 +3,43 @@ package me.senseiwells.arucas.discord.definitions;
 import me.senseiwells.arucas.api.docs.ClassDoc;
 import me.senseiwells.arucas.api.docs.FunctionDoc;
 import me.senseiwells.arucas.builtin.FileDef;
+import me.senseiwells.arucas.builtin.IterableDef;
+import me.senseiwells.arucas.builtin.ListDef;
 import me.senseiwells.arucas.builtin.MapDef;
 import me.senseiwells.arucas.builtin.NumberDef;
 import me.senseiwells.arucas.builtin.StringDef;
+import me.senseiwells.arucas.classes.ClassInstance;
 import me.senseiwells.arucas.classes.CreatableDefinition;
 import me.senseiwells.arucas.core.Interpreter;
 import me.senseiwells.arucas.discord.DiscordUtils;
+import me.senseiwells.arucas.discord.impl.BulkDeleter;
+import me.senseiwells.arucas.discord.impl.DiscordBot;
+import me.senseiwells.arucas.discord.impl.EmbedTemplate;
+import me.senseiwells.arucas.discord.impl.MessageHistory;
 import me.senseiwells.arucas.exceptions.RuntimeError;
 import me.senseiwells.arucas.utils.Arguments;
 import me.senseiwells.arucas.utils.MemberFunction;
 import me.senseiwells.arucas.utils.Util;
+import me.senseiwells.arucas.utils.impl.ArucasIterable;
+import me.senseiwells.arucas.utils.impl.ArucasList;
 import me.senseiwells.arucas.utils.impl.ArucasMap;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.requests.restaction.pagination.MessagePaginationAction;
 import net.dv8tion.jda.api.utils.FileUpload;
+import net.dv8tion.jda.api.utils.MiscUtil;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import static me.senseiwells.arucas.discord.DiscordAPI.DISCORD_CHANNEL;
+import static me.senseiwells.arucas.discord.DiscordAPI.DISCORD_EMBED_TEMPLATE;
 import static me.senseiwells.arucas.discord.DiscordAPI.DISCORD_MESSAGE;
 import static me.senseiwells.arucas.utils.Util.Types.*;
 
@@ -41,16 +59,25 @@ public class DiscordChannelDef extends CreatableDefinition<MessageChannel> {
 		return List.of(
 			MemberFunction.of("getMessageFromId", 1, this::getMessageFromId),
 			MemberFunction.of("getHistory", 1, this::getHistory),
+			MemberFunction.of("iterateHistory", this::iterateHistory),
+			MemberFunction.of("historyBefore", 1, this::historyBefore),
 			MemberFunction.of("markTyping", this::markTyping),
 			MemberFunction.of("sendMessage", 1, this::sendMessage),
 			MemberFunction.of("sendEmbed", 1, this::sendEmbed),
-			MemberFunction.of("sendFile", 1, this::sendFile)
+			MemberFunction.of("sendEmbed", 2, this::sendEmbedTemplate),
+			MemberFunction.of("sendFile", 1, this::sendFile),
+			MemberFunction.of("sendMessageAsync", 1, this::sendMessageAsync),
+			MemberFunction.of("sendEmbedAsync", 1, this::sendEmbedAsync),
+			MemberFunction.of("sendEmbedAsync", 2, this::sendEmbedTemplateAsync),
+			MemberFunction.of("sendFileAsync", 1, this::sendFileAsync),
+			MemberFunction.of("deleteMessages", 1, this::deleteMessages),
+			MemberFunction.of("purge", 1, this::purge)
 		);
 	}
 
 	@FunctionDoc(
 		name = "getMessageFromId",
-		desc = "This gets a message by its id",
+		desc = "This gets a message by its id, recently seen messages are returned without a request",
 		params = {STRING, "messageId", "the id of the message"},
 		returns = {DISCORD_MESSAGE, "the message"},
 		examples = "channel.getMessageFromId('12345678901234567890123456789012');"
@@ -58,11 +85,13 @@ public class DiscordChannelDef extends CreatableDefinition<MessageChannel> {
 	public Message getMessageFromId(Arguments arguments) {
 		MessageChannel channel = arguments.nextPrimitive(this);
 		String messageId = arguments.nextPrimitive(StringDef.class);
-		Message message = RuntimeError.wrap(() -> channel.getHistory().getMessageById(messageId));
-		if (message == null) {
+		long id = RuntimeError.wrap(() -> MiscUtil.parseSnowflake(messageId));
+		DiscordBot bot = DiscordBot.get(channel.getJDA());
+		try {
+			return bot == null ? channel.retrieveMessageById(id).complete() : bot.getMessageCache().retrieve(channel, id);
+		} catch (ErrorResponseException e) {
 			throw new RuntimeError("Message with id " + messageId + " couldn't be found");
 		}
-		return message;
 	}
 
 	@FunctionDoc(
@@ -75,7 +104,44 @@ public class DiscordChannelDef extends CreatableDefinition<MessageChannel> {
 	public List<Message> getHistory(Arguments arguments) {
 		MessageChannel channel = arguments.nextPrimitive(this);
 		int amount = arguments.nextPrimitive(NumberDef.class).intValue();
-		return RuntimeError.wrap(() -> channel.getHistory().retrievePast(amount)).complete();
+		return DiscordUtils.complete("retrievePast", channel.getIdLong(), RuntimeError.wrap(() -> channel.getHistory().retrievePast(amount)));
+	}
+
+	@FunctionDoc(
+		name = "iterateHistory",
+		desc = {
+			"This gets an iterable over every message in this channel from newest to oldest,",
+			"messages are fetched in pages as the iterable is used, and the next page is",
+			"fetched in the background while the current one is being iterated"
+		},
+		returns = {ITERABLE, "the messages"},
+		examples = """
+		foreach (message : channel.iterateHistory()) {
+		    print(message.getRaw());
+		}
+		"""
+	)
+	public ClassInstance iterateHistory(Arguments arguments) {
+		MessageChannel channel = arguments.nextPrimitive(this);
+		return this.createHistory(arguments.getInterpreter(), () -> RuntimeError.wrap(channel::getIterableHistory));
+	}
+
+	@FunctionDoc(
+		name = "historyBefore",
+		desc = "This gets an iterable over every message before the given message, see 'iterateHistory'",
+		params = {STRING, "messageId", "the id of the message to start before"},
+		returns = {ITERABLE, "the messages"},
+		examples = """
+		foreach (message : channel.historyBefore('12345678901234567890123456789012')) {
+		    print(message.getRaw());
+		}
+		"""
+	)
+	public ClassInstance historyBefore(Arguments arguments) {
+		MessageChannel channel = arguments.nextPrimitive(this);
+		String messageId = arguments.nextPrimitive(StringDef.class);
+		long id = RuntimeError.wrap(() -> MiscUtil.parseSnowflake(messageId));
+		return this.createHistory(arguments.getInterpreter(), () -> RuntimeError.wrap(channel::getIterableHistory).skipTo(id));
 	}
 
 	@FunctionDoc(
@@ -85,7 +151,7 @@ public class DiscordChannelDef extends CreatableDefinition<MessageChannel> {
 	)
 	public Void markTyping(Arguments arguments) {
 		MessageChannel channel = arguments.nextPrimitive(this);
-		RuntimeError.wrap(channel::sendTyping).complete();
+		DiscordUtils.sideEffect("sendTyping", channel.getIdLong(), RuntimeError.wrap(channel::sendTyping));
 		return null;
 	}
 
@@ -99,7 +165,7 @@ public class DiscordChannelDef extends CreatableDefinition<MessageChannel> {
 	public Object sendMessage(Arguments arguments) {
 		MessageChannel channel = arguments.nextPrimitive(this);
 		String message = arguments.nextPrimitive(StringDef.class);
-		return RuntimeError.wrap(() -> channel.sendMessage(message)).complete();
+		return DiscordUtils.complete("sendMessage", channel.getIdLong(), RuntimeError.wrap(() -> channel.sendMessage(message)));
 	}
 
 	@FunctionDoc(
@@ -111,7 +177,7 @@ public class DiscordChannelDef extends CreatableDefinition<MessageChannel> {
 			"'fields' as Map with keys: ('name' as String, 'value' as String, 'inline' as Boolean)",
 			"and 'image' as String that is an url"
 		},
-		params = {MAP, "embedMap", "the embed map"},
+		params = {MAP, "embedMap", "the embed map, or a DiscordEmbedTemplate without placeholders"},
 		returns = {DISCORD_MESSAGE, "the message that was sent"},
 		examples = """
 		channel.sendEmbed({
@@ -123,8 +189,25 @@ public class DiscordChannelDef extends CreatableDefinition<MessageChannel> {
 	)
 	public Message sendEmbed(Arguments arguments) {
 		MessageChannel channel = arguments.nextPrimitive(this);
-		ArucasMap embed = arguments.nextPrimitive(MapDef.class);
-		return RuntimeError.wrap(() -> channel.sendMessageEmbeds(DiscordUtils.parseMapAsEmbed(arguments.getInterpreter(), embed))).complete();
+		ClassInstance embed = arguments.next();
+		return DiscordUtils.complete("sendMessageEmbeds", channel.getIdLong(), RuntimeError.wrap(() -> channel.sendMessageEmbeds(DiscordUtils.parseEmbed(arguments.getInterpreter(), embed, null))));
+	}
+
+	@FunctionDoc(
+		name = "sendEmbed",
+		desc = "This sends an embed template to this channel with the given placeholder values",
+		params = {
+			DISCORD_EMBED_TEMPLATE, "template", "the embed template",
+			MAP, "values", "the values of the placeholders"
+		},
+		returns = {DISCORD_MESSAGE, "the message that was sent"},
+		examples = "channel.sendEmbed(template, {'name': 'Sensei'});"
+	)
+	public Message sendEmbedTemplate(Arguments arguments) {
+		MessageChannel channel = arguments.nextPrimitive(this);
+		EmbedTemplate template = arguments.nextPrimitive(DiscordEmbedTemplateDef.class);
+		ArucasMap values = arguments.nextPrimitive(MapDef.class);
+		return DiscordUtils.complete("sendMessageEmbeds", channel.getIdLong(), RuntimeError.wrap(() -> channel.sendMessageEmbeds(template.render(arguments.getInterpreter(), values))));
 	}
 
 	@FunctionDoc(
@@ -137,6 +220,132 @@ public class DiscordChannelDef extends CreatableDefinition<MessageChannel> {
 	public Message sendFile(Arguments arguments) {
 		MessageChannel channel = arguments.nextPrimitive(this);
 		File file = arguments.nextPrimitive(FileDef.class);
-		return RuntimeError.wrap(() -> channel.sendFiles(FileUpload.fromData(file))).complete();
+		return DiscordUtils.complete("sendFiles", channel.getIdLong(), RuntimeError.wrap(() -> channel.sendFiles(FileUpload.fromData(file))));
+	}
+
+	@FunctionDoc(
+		name = "sendMessageAsync",
+		desc = "This sends a message to this channel without waiting for it to be sent",
+		params = {STRING, "message", "the message"},
+		returns = {FUTURE, "the future that will complete with the message that was sent"},
+		examples = "channel.sendMessageAsync('Hello World!');"
+	)
+	public Future<Message> sendMessageAsync(Arguments arguments) {
+		MessageChannel channel = arguments.nextPrimitive(this);
+		String message = arguments.nextPrimitive(StringDef.class);
+		return DiscordUtils.submit("sendMessage", channel.getIdLong(), RuntimeError.wrap(() -> channel.sendMessage(message)));
+	}
+
+	@FunctionDoc(
+		name = "sendEmbedAsync",
+		desc = {
+			"This sends an embed to this channel without waiting for it to be sent,",
+			"the embed map is the same as in 'sendEmbed'"
+		},
+		params = {MAP, "embedMap", "the embed map, or a DiscordEmbedTemplate without placeholders"},
+		returns = {FUTURE, "the future that will complete with the message that was sent"},
+		examples = "channel.sendEmbedAsync({'title': 'EMBED!'});"
+	)
+	public Future<Message> sendEmbedAsync(Arguments arguments) {
+		MessageChannel channel = arguments.nextPrimitive(this);
+		ClassInstance embed = arguments.next();
+		return DiscordUtils.submit("sendMessageEmbeds", channel.getIdLong(), RuntimeError.wrap(() -> channel.sendMessageEmbeds(DiscordUtils.parseEmbed(arguments.getInterpreter(), embed, null))));
+	}
+
+	@FunctionDoc(
+		name = "sendEmbedAsync",
+		desc = "This sends an embed template to this channel with the given placeholder values without waiting for it to be sent",
+		params = {
+			DISCORD_EMBED_TEMPLATE, "template", "the embed template",
+			MAP, "values", "the values of the placeholders"
+		},
+		returns = {FUTURE, "the future that will complete with the message that was sent"},
+		examples = "channel.sendEmbedAsync(template, {'name': 'Sensei'});"
+	)
+	public Future<Message> sendEmbedTemplateAsync(Arguments arguments) {
+		MessageChannel channel = arguments.nextPrimitive(this);
+		EmbedTemplate template = arguments.nextPrimitive(DiscordEmbedTemplateDef.class);
+		ArucasMap values = arguments.nextPrimitive(MapDef.class);
+		return DiscordUtils.submit("sendMessageEmbeds", channel.getIdLong(), RuntimeError.wrap(() -> channel.sendMessageEmbeds(template.render(arguments.getInterpreter(), values))));
+	}
+
+	@FunctionDoc(
+		name = "sendFileAsync",
+		desc = "This sends a file to this channel without waiting for it to be sent",
+		params = {FILE, "file", "the file you want to send"},
+		returns = {FUTURE, "the future that will complete with the message that was sent"},
+		examples = "channel.sendFileAsync(new File('a/b/totally_real_file.txt'));"
+	)
+	public Future<Message> sendFileAsync(Arguments arguments) {
+		MessageChannel channel = arguments.nextPrimitive(this);
+		File file = arguments.nextPrimitive(FileDef.class);
+		return DiscordUtils.submit("sendFiles", channel.getIdLong(), RuntimeError.wrap(() -> channel.sendFiles(FileUpload.fromData(file))));
+	}
+
+	@FunctionDoc(
+		name = "deleteMessages",
+		desc = {
+			"This deletes the given messages, recent messages in servers are deleted in bulk",
+			"in groups of 100, older messages are deleted one at a time, Discord limits deletes per channel",
+			"so deletes in other channels still run alongside these, and they never hold up replies",
+			"The future completes with a map with the keys 'bulk', 'single', and 'failed'",
+			"containing the number of messages deleted each way and the number that failed"
+		},
+		params = {LIST, "messages", "the messages or message ids to delete"},
+		returns = {FUTURE, "the future that will complete with the counts"},
+		examples = "channel.deleteMessages(channel.getHistory(50));"
+	)
+	public Future<Map<String, Object>> deleteMessages(Arguments arguments) {
+		MessageChannel channel = arguments.nextPrimitive(this);
+		ArucasList messages = arguments.nextPrimitive(ListDef.class);
+		List<Long> ids = new ArrayList<>();
+		for (ClassInstance instance : messages) {
+			Message message = instance.getPrimitive(DiscordMessageDef.class);
+			if (message != null) {
+				ids.add(message.getIdLong());
+				continue;
+			}
+			String id = instance.getPrimitive(StringDef.class);
+			if (id == null) {
+				throw new RuntimeError("Expected a DiscordMessage or message id but got '%s'".formatted(instance.toString(arguments.getInterpreter())));
+			}
+			ids.add(RuntimeError.wrap(() -> MiscUtil.parseSnowflake(id)));
+		}
+		return BulkDeleter.delete(channel, ids);
+	}
+
+	@FunctionDoc(
+		name = "purge",
+		desc = {
+			"This deletes the last X messages in this channel, the same way as 'deleteMessages'",
+			"The future completes with a map with the keys 'bulk', 'single', and 'failed'"
+		},
+		params = {NUMBER, "amount", "the amount of messages to delete"},
+		returns = {FUTURE, "the future that will complete with the counts"},
+		examples = "channel.purge(200);"
+	)
+	public Future<Map<String, Object>> purge(Arguments arguments) {
+		MessageChannel channel = arguments.nextPrimitive(this);
+		int amount = arguments.nextPrimitive(NumberDef.class).intValue();
+		return BulkDeleter.purge(channel, amount);
+	}
+
+	private ClassInstance createHistory(Interpreter interpreter, Supplier<MessagePaginationAction> history) {
+		// Each iteration walks the history again from the start
+		ArucasIterable iterable = () -> {
+			MessageHistory messages = new MessageHistory(history.get());
+			return new Iterator<>() {
+				@Override
+				public boolean hasNext() {
+					return messages.hasNext();
+				}
+
+				@Override
+				public ClassInstance next() {
+					return interpreter.convertValue(messages.next());
+				}
+			};
+		};
+		return interpreter.create(IterableDef.class, iterable);
 	}
 }
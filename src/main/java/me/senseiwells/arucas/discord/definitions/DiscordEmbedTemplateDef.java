@@ -0,0 +1,83 @@
+package me.senseiwells.arucas.discord.definitions;
+
+import me.senseiwells.arucas.api.docs.ClassDoc;
+import me.senseiwells.arucas.api.docs.FunctionDoc;
+import me.senseiwells.arucas.builtin.MapDef;
+import me.senseiwells.arucas.classes.ClassInstance;
+import me.senseiwells.arucas.classes.CreatableDefinition;
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.DiscordUtils;
+import me.senseiwells.arucas.discord.impl.EmbedTemplate;
+import me.senseiwells.arucas.utils.Arguments;
+import me.senseiwells.arucas.utils.BuiltInFunction;
+import me.senseiwells.arucas.utils.MemberFunction;
+import me.senseiwells.arucas.utils.Util;
+import me.senseiwells.arucas.utils.impl.ArucasMap;
+
+import java.util.List;
+
+import static me.senseiwells.arucas.discord.DiscordAPI.DISCORD_EMBED_TEMPLATE;
+import static me.senseiwells.arucas.utils.Util.Types.*;
+
+@ClassDoc(
+	name = DISCORD_EMBED_TEMPLATE,
+	desc = {
+		"This class is a pre-compiled embed, text in the embed can contain {placeholders}",
+		"which are filled in with the values given when the embed is sent."
+	},
+	importPath = "discordapi.Discord",
+	language = Util.Language.Java
+)
+public class DiscordEmbedTemplateDef extends CreatableDefinition<EmbedTemplate> {
+	public DiscordEmbedTemplateDef(Interpreter interpreter) {
+		super(DISCORD_EMBED_TEMPLATE, interpreter);
+	}
+
+	@Override
+	public List<BuiltInFunction> defineStaticMethods() {
+		return List.of(
+			BuiltInFunction.of("compile", 1, this::compile)
+		);
+	}
+
+	@Override
+	public List<MemberFunction> defineMethods() {
+		return List.of(
+			MemberFunction.of("getPlaceholders", this::getPlaceholders)
+		);
+	}
+
+	@FunctionDoc(
+		isStatic = true,
+		name = "compile",
+		desc = {
+			"This compiles an embed map into a template, the map has the same keys as in 'sendEmbed',",
+			"the title, description, field names, field values, and image can contain {placeholders},",
+			"the lengths of the embed are checked here so the template can be sent many times"
+		},
+		params = {MAP, "embedMap", "the embed map"},
+		returns = {DISCORD_EMBED_TEMPLATE, "the compiled template"},
+		examples = """
+		template = DiscordEmbedTemplate.compile({
+		    'title': 'Welcome {name}!',
+		    'description': 'You are member number {count}',
+		    'colour': 0xFFFFFF
+		});
+		channel.sendEmbed(template, {'name': 'Sensei', 'count': 100});
+		"""
+	)
+	public ClassInstance compile(Arguments arguments) {
+		ArucasMap map = arguments.nextPrimitive(MapDef.class);
+		return this.create(DiscordUtils.parseMapAsEmbedTemplate(arguments.getInterpreter(), map));
+	}
+
+	@FunctionDoc(
+		name = "getPlaceholders",
+		desc = "This gets the names of the placeholders in the template",
+		returns = {LIST, "the names of the placeholders"},
+		examples = "template.getPlaceholders();"
+	)
+	public List<String> getPlaceholders(Arguments arguments) {
+		return arguments.nextPrimitive(this).getPlaceholders();
+	}
+}
@@ -5,9 +5,13 @@ import me.senseiwells.arucas.api.docs.FunctionDoc;
 import me.senseiwells.arucas.builtin.FileDef;
 import me.senseiwells.arucas.builtin.MapDef;
 import me.senseiwells.arucas.builtin.StringDef;
+import me.senseiwells.arucas.classes.ClassInstance;
 import me.senseiwells.arucas.classes.CreatableDefinition;
 import me.senseiwells.arucas.core.Interpreter;
 import me.senseiwells.arucas.discord.DiscordUtils;
+import me.senseiwells.arucas.discord.impl.DiscordEvent;
+import me.senseiwells.arucas.discord.impl.EmbedTemplate;
+import me.senseiwells.arucas.discord.impl.Permissions;
 import me.senseiwells.arucas.exceptions.RuntimeError;
 import me.senseiwells.arucas.utils.Arguments;
 import me.senseiwells.arucas.utils.MemberFunction;
@@ -17,19 +21,11 @@ import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
-import net.dv8tion.jda.api.events.GenericEvent;
-import net.dv8tion.jda.api.events.channel.GenericChannelEvent;
-import net.dv8tion.jda.api.events.guild.GenericGuildEvent;
-import net.dv8tion.jda.api.events.guild.GuildBanEvent;
-import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
-import net.dv8tion.jda.api.events.message.MessageUpdateEvent;
-import net.dv8tion.jda.api.events.message.react.GenericMessageReactionEvent;
-import net.dv8tion.jda.api.interactions.Interaction;
-import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
 import net.dv8tion.jda.api.utils.FileUpload;
 
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import static me.senseiwells.arucas.discord.DiscordAPI.*;
 import static me.senseiwells.arucas.utils.Util.Types.*;
@@ -40,7 +36,7 @@ import static me.senseiwells.arucas.utils.Util.Types.*;
 	importPath = "discordapi.Discord",
 	language = Util.Language.Java
 )
-public class DiscordEventDef extends CreatableDefinition<GenericEvent> {
+public class DiscordEventDef extends CreatableDefinition<DiscordEvent> {
 	public DiscordEventDef(Interpreter interpreter) {
 		super(DISCORD_EVENT, interpreter);
 	}
@@ -53,9 +49,15 @@ public class DiscordEventDef extends CreatableDefinition<GenericEvent> {
 			MemberFunction.of("getUser", this::getUser),
 			MemberFunction.of("getChannel", this::getChannel),
 			MemberFunction.of("getServer", this::getServer),
+			MemberFunction.of("hasPermissions", 1, this::hasPermissions),
 			MemberFunction.of("reply", 1, this::reply),
 			MemberFunction.of("replyWithEmbed", 1, this::replyWithEmbed),
-			MemberFunction.of("replyWithFile", 1, this::replyWithFile)
+			MemberFunction.of("replyWithEmbed", 2, this::replyWithEmbedTemplate),
+			MemberFunction.of("replyWithFile", 1, this::replyWithFile),
+			MemberFunction.of("replyAsync", 1, this::replyAsync),
+			MemberFunction.of("replyWithEmbedAsync", 1, this::replyWithEmbedAsync),
+			MemberFunction.of("replyWithEmbedAsync", 2, this::replyWithEmbedTemplateAsync),
+			MemberFunction.of("replyWithFileAsync", 1, this::replyWithFileAsync)
 		);
 	}
 
@@ -66,8 +68,8 @@ public class DiscordEventDef extends CreatableDefinition<GenericEvent> {
 		examples = "event.getEventName();"
 	)
 	public String getEventName(Arguments arguments) {
-		GenericEvent event = arguments.nextPrimitive(this);
-		return event.getClass().getSimpleName();
+		DiscordEvent event = arguments.nextPrimitive(this);
+		return event.getEventName();
 	}
 
 	@FunctionDoc(
@@ -77,8 +79,8 @@ public class DiscordEventDef extends CreatableDefinition<GenericEvent> {
 		examples = "event.getMessage();"
 	)
 	public Message getMessage(Arguments arguments) {
-		GenericEvent event = arguments.nextPrimitive(this);
-		return getMessage(event);
+		DiscordEvent event = arguments.nextPrimitive(this);
+		return event.getMessage();
 	}
 
 	@FunctionDoc(
@@ -88,8 +90,8 @@ public class DiscordEventDef extends CreatableDefinition<GenericEvent> {
 		examples = "event.getUser();"
 	)
 	public User getUser(Arguments arguments) {
-		GenericEvent event = arguments.nextPrimitive(this);
-		return getUser(event);
+		DiscordEvent event = arguments.nextPrimitive(this);
+		return event.getUser();
 	}
 
 	@FunctionDoc(
@@ -99,8 +101,8 @@ public class DiscordEventDef extends CreatableDefinition<GenericEvent> {
 		examples = "event.getChannel();"
 	)
 	public MessageChannel getChannel(Arguments arguments) {
-		GenericEvent event = arguments.nextPrimitive(this);
-		return getChannel(event);
+		DiscordEvent event = arguments.nextPrimitive(this);
+		return event.getChannel();
 	}
 
 	@FunctionDoc(
@@ -110,8 +112,31 @@ public class DiscordEventDef extends CreatableDefinition<GenericEvent> {
 		examples = "event.getServer();"
 	)
 	public Guild getServer(Arguments arguments) {
-		GenericEvent event = arguments.nextPrimitive(this);
-		return getServer(event);
+		DiscordEvent event = arguments.nextPrimitive(this);
+		return event.getServer();
+	}
+
+	@FunctionDoc(
+		name = "hasPermissions",
+		desc = {
+			"This checks whether the member that caused the event has all of the given permissions,",
+			"for messages and interactions the permissions in the channel are checked,",
+			"the permissions can be a list of names or a mask from 'DiscordServer.getPermissionMask'",
+			"which is faster when checking the same permissions on every message"
+		},
+		params = {LIST, "permissions", "the permission names or the permission mask"},
+		returns = {BOOLEAN, "whether the member has the permissions, false if the event has no member"},
+		examples = """
+		MODERATOR = DiscordServer.getPermissionMask(['Ban Members', 'Kick Members']);
+		if (event.hasPermissions(MODERATOR)) {
+		    // do stuff
+		}
+		"""
+	)
+	public Boolean hasPermissions(Arguments arguments) {
+		DiscordEvent event = arguments.nextPrimitive(this);
+		long required = Permissions.parseMask(arguments.getInterpreter(), arguments.next());
+		return event.hasPermissions(required);
 	}
 
 	@FunctionDoc(
@@ -121,9 +146,9 @@ public class DiscordEventDef extends CreatableDefinition<GenericEvent> {
 		examples = "event.reply('Reply!');"
 	)
 	public Void reply(Arguments arguments) {
-		GenericEvent event = arguments.nextPrimitive(this);
+		DiscordEvent event = arguments.nextPrimitive(this);
 		String message = arguments.nextPrimitive(StringDef.class);
-		RuntimeError.wrap(() -> getReplyCallback(event).reply(message)).complete();
+		DiscordUtils.sideEffect("reply", RuntimeError.wrap(() -> event.getReplyCallback().reply(message)));
 		return null;
 	}
 
@@ -136,7 +161,7 @@ public class DiscordEventDef extends CreatableDefinition<GenericEvent> {
 			"'fields' as Map with keys: ('name' as String, 'value' as String, 'inline' as Boolean)",
 			"and 'image' as String that is an url"
 		},
-		params = {MAP, "embedMap", "the embed map"},
+		params = {MAP, "embedMap", "the embed map, or a DiscordEmbedTemplate without placeholders"},
 		examples = """
 		event.replyWithEmbed({
 		    'title': 'EMBED!',
@@ -146,9 +171,26 @@ public class DiscordEventDef extends CreatableDefinition<GenericEvent> {
 		"""
 	)
 	public Void replyWithEmbed(Arguments arguments) {
-		GenericEvent event = arguments.nextPrimitive(this);
-		ArucasMap map = arguments.nextPrimitive(MapDef.class);
-		RuntimeError.wrap(() -> getReplyCallback(event).replyEmbeds(DiscordUtils.parseMapAsEmbed(arguments.getInterpreter(), map))).complete();
+		DiscordEvent event = arguments.nextPrimitive(this);
+		ClassInstance embed = arguments.next();
+		DiscordUtils.sideEffect("replyEmbeds", RuntimeError.wrap(() -> event.getReplyCallback().replyEmbeds(DiscordUtils.parseEmbed(arguments.getInterpreter(), embed, null))));
+		return null;
+	}
+
+	@FunctionDoc(
+		name = "replyWithEmbed",
+		desc = "This replies to the event with an embed template and the given placeholder values",
+		params = {
+			DISCORD_EMBED_TEMPLATE, "template", "the embed template",
+			MAP, "values", "the values of the placeholders"
+		},
+		examples = "event.replyWithEmbed(template, {'name': 'Sensei'});"
+	)
+	public Void replyWithEmbedTemplate(Arguments arguments) {
+		DiscordEvent event = arguments.nextPrimitive(this);
+		EmbedTemplate template = arguments.nextPrimitive(DiscordEmbedTemplateDef.class);
+		ArucasMap values = arguments.nextPrimitive(MapDef.class);
+		DiscordUtils.sideEffect("replyEmbeds", RuntimeError.wrap(() -> event.getReplyCallback().replyEmbeds(template.render(arguments.getInterpreter(), values))));
 		return null;
 	}
 
@@ -159,69 +201,68 @@ public class DiscordEventDef extends CreatableDefinition<GenericEvent> {
 		examples = "event.replyWithFile(new File('/path/to/file.txt'));"
 	)
 	public Void replyWithFile(Arguments arguments) {
-		GenericEvent event = arguments.nextPrimitive(this);
+		DiscordEvent event = arguments.nextPrimitive(this);
 		File file = arguments.nextPrimitive(FileDef.class);
-		RuntimeError.wrap(() -> getReplyCallback(event).replyFiles(FileUpload.fromData(file))).complete();
+		DiscordUtils.sideEffect("replyFiles", RuntimeError.wrap(() -> event.getReplyCallback().replyFiles(FileUpload.fromData(file))));
 		return null;
 	}
 
-	private static void invalidEvent(GenericEvent event, String details) {
-		throw new RuntimeError("'%s' %s".formatted(event.getClass().getSimpleName(), details));
-	}
-
-	private static IReplyCallback getReplyCallback(GenericEvent event) {
-		if (event instanceof IReplyCallback iReplyCallback) {
-			return iReplyCallback;
-		}
-		invalidEvent(event, "cannot reply");
-		throw null;
-	}
-
-	private static Message getMessage(GenericEvent event) {
-		return getMessage(event, "has no message");
-	}
-
-	private static Message getMessage(GenericEvent event, String error) {
-		if (event instanceof MessageReceivedEvent receivedEvent) {
-			return receivedEvent.getMessage();
-		}
-		if (event instanceof MessageUpdateEvent updateEvent) {
-			return updateEvent.getMessage();
-		}
-		if (event instanceof GenericMessageReactionEvent reactionEvent) {
-			return reactionEvent.retrieveMessage().complete();
-		}
-		invalidEvent(event, error);
-		throw null;
+	@FunctionDoc(
+		name = "replyAsync",
+		desc = "This replies to the event with the given message without waiting for it to be sent",
+		params = {STRING, "message", "the message"},
+		returns = {FUTURE, "the future that will complete when the reply has been sent"},
+		examples = "event.replyAsync('Reply!');"
+	)
+	public Future<Void> replyAsync(Arguments arguments) {
+		DiscordEvent event = arguments.nextPrimitive(this);
+		String message = arguments.nextPrimitive(StringDef.class);
+		return DiscordUtils.submit("reply", RuntimeError.wrap(() -> event.getReplyCallback().reply(message))).thenApply(hook -> null);
 	}
 
-	private static User getUser(GenericEvent event) {
-		if (event instanceof GuildBanEvent banEvent) {
-			return banEvent.getUser();
-		}
-		if (event instanceof Interaction interactionEvent) {
-			return interactionEvent.getUser();
-		}
-		return getMessage(event, "has no user").getAuthor();
+	@FunctionDoc(
+		name = "replyWithEmbedAsync",
+		desc = {
+			"This replies to the event with the given embed map without waiting for it to be sent,",
+			"the embed map is the same as in 'replyWithEmbed'"
+		},
+		params = {MAP, "embedMap", "the embed map, or a DiscordEmbedTemplate without placeholders"},
+		returns = {FUTURE, "the future that will complete when the reply has been sent"},
+		examples = "event.replyWithEmbedAsync({'title': 'EMBED!'});"
+	)
+	public Future<Void> replyWithEmbedAsync(Arguments arguments) {
+		DiscordEvent event = arguments.nextPrimitive(this);
+		ClassInstance embed = arguments.next();
+		return DiscordUtils.submit("replyEmbeds", RuntimeError.wrap(() -> event.getReplyCallback().replyEmbeds(DiscordUtils.parseEmbed(arguments.getInterpreter(), embed, null)))).thenApply(hook -> null);
 	}
 
-	private static MessageChannel getChannel(GenericEvent event) {
-		if (event instanceof GenericChannelEvent channelEvent && channelEvent.getChannel() instanceof MessageChannel messageChannel) {
-			return messageChannel;
-		}
-		if (event instanceof Interaction interactionEvent) {
-			return interactionEvent.getMessageChannel();
-		}
-		return getMessage(event, "has no channel").getChannel();
+	@FunctionDoc(
+		name = "replyWithEmbedAsync",
+		desc = "This replies to the event with an embed template and the given placeholder values without waiting for it to be sent",
+		params = {
+			DISCORD_EMBED_TEMPLATE, "template", "the embed template",
+			MAP, "values", "the values of the placeholders"
+		},
+		returns = {FUTURE, "the future that will complete when the reply has been sent"},
+		examples = "event.replyWithEmbedAsync(template, {'name': 'Sensei'});"
+	)
+	public Future<Void> replyWithEmbedTemplateAsync(Arguments arguments) {
+		DiscordEvent event = arguments.nextPrimitive(this);
+		EmbedTemplate template = arguments.nextPrimitive(DiscordEmbedTemplateDef.class);
+		ArucasMap values = arguments.nextPrimitive(MapDef.class);
+		return DiscordUtils.submit("replyEmbeds", RuntimeError.wrap(() -> event.getReplyCallback().replyEmbeds(template.render(arguments.getInterpreter(), values)))).thenApply(hook -> null);
 	}
 
-	private static Guild getServer(GenericEvent event) {
-		if (event instanceof GenericGuildEvent guildEvent) {
-			return guildEvent.getGuild();
-		}
-		if (event instanceof Interaction interactionEvent) {
-			return interactionEvent.getGuild();
-		}
-		return getMessage(event, "has no server").getGuild();
+	@FunctionDoc(
+		name = "replyWithFileAsync",
+		desc = "This replies to the event with the given file without waiting for it to be sent",
+		params = {FILE, "file", "the file"},
+		returns = {FUTURE, "the future that will complete when the reply has been sent"},
+		examples = "event.replyWithFileAsync(new File('/path/to/file.txt'));"
+	)
+	public Future<Void> replyWithFileAsync(Arguments arguments) {
+		DiscordEvent event = arguments.nextPrimitive(this);
+		File file = arguments.nextPrimitive(FileDef.class);
+		return DiscordUtils.submit("replyFiles", RuntimeError.wrap(() -> event.getReplyCallback().replyFiles(FileUpload.fromData(file)))).thenApply(hook -> null);
 	}
 }
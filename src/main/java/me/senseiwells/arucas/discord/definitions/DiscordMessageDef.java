@@ -11,6 +11,7 @@ import me.senseiwells.arucas.classes.ClassInstance;
 import me.senseiwells.arucas.classes.CreatableDefinition;
 import me.senseiwells.arucas.core.Interpreter;
 import me.senseiwells.arucas.discord.DiscordUtils;
+import me.senseiwells.arucas.discord.impl.EmbedTemplate;
 import me.senseiwells.arucas.exceptions.RuntimeError;
 import me.senseiwells.arucas.utils.Arguments;
 import me.senseiwells.arucas.utils.LocatableTrace;
@@ -29,6 +30,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import static me.senseiwells.arucas.discord.DiscordAPI.*;
 import static me.senseiwells.arucas.utils.Util.Types.*;
@@ -69,7 +71,17 @@ public class DiscordMessageDef extends CreatableDefinition<Message> {
 			MemberFunction.of("isEdited", this::isEdited),
 			MemberFunction.of("reply", 1, this::reply),
 			MemberFunction.of("replyWithEmbed", 1, this::replyWithEmbed),
-			MemberFunction.of("replyWithFile", 1, this::replyWithFile)
+			MemberFunction.of("replyWithEmbed", 2, this::replyWithEmbedTemplate),
+			MemberFunction.of("replyWithFile", 1, this::replyWithFile),
+			MemberFunction.of("addReactionAsync", 1, this::addReactionAsync),
+			MemberFunction.of("addReactionUnicodeAsync", 1, this::addReactionUnicodeAsync),
+			MemberFunction.of("removeAllReactionsAsync", this::removeAllReactionsAsync),
+			MemberFunction.of("deleteAsync", this::deleteAsync),
+			MemberFunction.of("pinAsync", 1, this::pinAsync),
+			MemberFunction.of("replyAsync", 1, this::replyAsync),
+			MemberFunction.of("replyWithEmbedAsync", 1, this::replyWithEmbedAsync),
+			MemberFunction.of("replyWithEmbedAsync", 2, this::replyWithEmbedTemplateAsync),
+			MemberFunction.of("replyWithFileAsync", 1, this::replyWithFileAsync)
 		);
 	}
 
@@ -152,7 +164,7 @@ public class DiscordMessageDef extends CreatableDefinition<Message> {
 		if (emoji == null) {
 			throw new RuntimeException("'%s' is not a valid emoji id".formatted(emojiId));
 		}
-		RuntimeError.wrap(() -> message.addReaction(emoji)).complete();
+		DiscordUtils.sideEffect("addReaction", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.addReaction(emoji)));
 		return null;
 	}
 
@@ -165,7 +177,7 @@ public class DiscordMessageDef extends CreatableDefinition<Message> {
 	public Void addReactionUnicode(Arguments arguments) {
 		Message message = arguments.nextPrimitive(this);
 		String unicode = arguments.nextPrimitive(StringDef.class);
-		RuntimeError.wrap(() -> message.addReaction(Emoji.fromUnicode(unicode))).complete();
+		DiscordUtils.sideEffect("addReaction", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.addReaction(Emoji.fromUnicode(unicode))));
 		return null;
 	}
 
@@ -176,7 +188,7 @@ public class DiscordMessageDef extends CreatableDefinition<Message> {
 	)
 	public Void removeAllReactions(Arguments arguments) {
 		Message message = arguments.nextPrimitive(this);
-		RuntimeError.wrap(() -> message.clearReactions()).complete();
+		DiscordUtils.sideEffect("clearReactions", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.clearReactions()));
 		return null;
 	}
 
@@ -187,7 +199,7 @@ public class DiscordMessageDef extends CreatableDefinition<Message> {
 	)
 	public Void delete(Arguments arguments) {
 		Message message = arguments.nextPrimitive(this);
-		RuntimeError.wrap(message::delete).complete();
+		DiscordUtils.sideEffect("delete", message.getChannel().getIdLong(), RuntimeError.wrap(message::delete));
 		return null;
 	}
 
@@ -200,7 +212,7 @@ public class DiscordMessageDef extends CreatableDefinition<Message> {
 	public Void pin(Arguments arguments) {
 		Message message = arguments.nextPrimitive(this);
 		boolean shouldPin = arguments.nextPrimitive(BooleanDef.class);
-		RuntimeError.wrap(shouldPin ? message::pin : message::unpin).complete();
+		DiscordUtils.sideEffect("pin", message.getChannel().getIdLong(), RuntimeError.wrap(shouldPin ? message::pin : message::unpin));
 		return null;
 	}
 
@@ -236,7 +248,7 @@ public class DiscordMessageDef extends CreatableDefinition<Message> {
 	public ClassInstance reply(Arguments arguments) {
 		Message message = arguments.nextPrimitive(this);
 		String toSend = arguments.nextPrimitive(StringDef.class);
-		return this.create(RuntimeError.wrap(() -> message.reply(toSend)).complete());
+		return this.create(DiscordUtils.complete("reply", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.reply(toSend))));
 	}
 
 	@FunctionDoc(
@@ -248,7 +260,7 @@ public class DiscordMessageDef extends CreatableDefinition<Message> {
 			"'fields' as Map with keys: ('name' as String, 'value' as String, 'inline' as Boolean)",
 			"and 'image' as String that is an url"
 		},
-		params = {MAP, "embedMap", "the embed map"},
+		params = {MAP, "embedMap", "the embed map, or a DiscordEmbedTemplate without placeholders"},
 		returns = {DISCORD_MESSAGE, "the message that was sent"},
 		examples = """
 		message.replyWithEmbed({
@@ -260,8 +272,25 @@ public class DiscordMessageDef extends CreatableDefinition<Message> {
 	)
 	public ClassInstance replyWithEmbed(Arguments arguments) {
 		Message message = arguments.nextPrimitive(this);
-		ArucasMap embed = arguments.nextPrimitive(MapDef.class);
-		return this.create(RuntimeError.wrap(() -> message.replyEmbeds(DiscordUtils.parseMapAsEmbed(arguments.getInterpreter(), embed))).complete());
+		ClassInstance embed = arguments.next();
+		return this.create(DiscordUtils.complete("replyEmbeds", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.replyEmbeds(DiscordUtils.parseEmbed(arguments.getInterpreter(), embed, null)))));
+	}
+
+	@FunctionDoc(
+		name = "replyWithEmbed",
+		desc = "This replies to the message with an embed template and the given placeholder values",
+		params = {
+			DISCORD_EMBED_TEMPLATE, "template", "the embed template",
+			MAP, "values", "the values of the placeholders"
+		},
+		returns = {DISCORD_MESSAGE, "the message that was sent"},
+		examples = "message.replyWithEmbed(template, {'name': 'Sensei'});"
+	)
+	public ClassInstance replyWithEmbedTemplate(Arguments arguments) {
+		Message message = arguments.nextPrimitive(this);
+		EmbedTemplate template = arguments.nextPrimitive(DiscordEmbedTemplateDef.class);
+		ArucasMap values = arguments.nextPrimitive(MapDef.class);
+		return this.create(DiscordUtils.complete("replyEmbeds", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.replyEmbeds(template.render(arguments.getInterpreter(), values)))));
 	}
 
 	@FunctionDoc(
@@ -274,6 +303,130 @@ public class DiscordMessageDef extends CreatableDefinition<Message> {
 	public ClassInstance replyWithFile(Arguments arguments) {
 		Message message = arguments.nextPrimitive(this);
 		File file = arguments.nextPrimitive(FileDef.class);
-		return this.create(RuntimeError.wrap(() -> message.replyFiles(FileUpload.fromData(file))).complete());
+		return this.create(DiscordUtils.complete("replyFiles", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.replyFiles(FileUpload.fromData(file)))));
+	}
+
+	@FunctionDoc(
+		name = "addReactionAsync",
+		desc = "This adds a reaction to the message with a specific emoji id without waiting for it to be added",
+		params = {STRING, "emojiId", "the emoji id"},
+		returns = {FUTURE, "the future that will complete when the reaction has been added"},
+		examples = "message.addReactionAsync('012789012930198');"
+	)
+	public Future<Void> addReactionAsync(Arguments arguments) {
+		Message message = arguments.nextPrimitive(this);
+		String emojiId = arguments.nextPrimitive(StringDef.class);
+		Emoji emoji = RuntimeError.wrap(() -> message.getGuild().getEmojiById(emojiId));
+		if (emoji == null) {
+			throw new RuntimeException("'%s' is not a valid emoji id".formatted(emojiId));
+		}
+		return DiscordUtils.submit("addReaction", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.addReaction(emoji)));
+	}
+
+	@FunctionDoc(
+		name = "addReactionUnicodeAsync",
+		desc = "This adds a reaction to the message with a specific unicode without waiting for it to be added",
+		params = {STRING, "unicode", "the unicode character"},
+		returns = {FUTURE, "the future that will complete when the reaction has been added"},
+		examples = "message.addReactionUnicodeAsync('\\uD83D\\uDE00');"
+	)
+	public Future<Void> addReactionUnicodeAsync(Arguments arguments) {
+		Message message = arguments.nextPrimitive(this);
+		String unicode = arguments.nextPrimitive(StringDef.class);
+		return DiscordUtils.submit("addReaction", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.addReaction(Emoji.fromUnicode(unicode))));
+	}
+
+	@FunctionDoc(
+		name = "removeAllReactionsAsync",
+		desc = "This removes all reactions from the message without waiting for them to be removed",
+		returns = {FUTURE, "the future that will complete when the reactions have been removed"},
+		examples = "message.removeAllReactionsAsync();"
+	)
+	public Future<Void> removeAllReactionsAsync(Arguments arguments) {
+		Message message = arguments.nextPrimitive(this);
+		return DiscordUtils.submit("clearReactions", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.clearReactions()));
+	}
+
+	@FunctionDoc(
+		name = "deleteAsync",
+		desc = "This deletes the message without waiting for it to be deleted",
+		returns = {FUTURE, "the future that will complete when the message has been deleted"},
+		examples = "message.deleteAsync();"
+	)
+	public Future<Void> deleteAsync(Arguments arguments) {
+		Message message = arguments.nextPrimitive(this);
+		return DiscordUtils.submit("delete", message.getChannel().getIdLong(), RuntimeError.wrap(message::delete));
+	}
+
+	@FunctionDoc(
+		name = "pinAsync",
+		desc = "This pins the message if true, and removes if false, without waiting for it to complete",
+		params = {BOOLEAN, "bool", "true to pin, false to unpin"},
+		returns = {FUTURE, "the future that will complete when the message has been pinned or unpinned"},
+		examples = "message.pinAsync(true);"
+	)
+	public Future<Void> pinAsync(Arguments arguments) {
+		Message message = arguments.nextPrimitive(this);
+		boolean shouldPin = arguments.nextPrimitive(BooleanDef.class);
+		return DiscordUtils.submit("pin", message.getChannel().getIdLong(), RuntimeError.wrap(shouldPin ? message::pin : message::unpin));
+	}
+
+	@FunctionDoc(
+		name = "replyAsync",
+		desc = "This replies to the message with the given message without waiting for it to be sent",
+		params = {STRING, "message", "the message"},
+		returns = {FUTURE, "the future that will complete with the message that was sent"},
+		examples = "message.replyAsync('Replied!');"
+	)
+	public Future<Message> replyAsync(Arguments arguments) {
+		Message message = arguments.nextPrimitive(this);
+		String toSend = arguments.nextPrimitive(StringDef.class);
+		return DiscordUtils.submit("reply", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.reply(toSend)));
+	}
+
+	@FunctionDoc(
+		name = "replyWithEmbedAsync",
+		desc = {
+			"This replies to the message with the given embed map without waiting for it to be sent,",
+			"the embed map is the same as in 'replyWithEmbed'"
+		},
+		params = {MAP, "embedMap", "the embed map, or a DiscordEmbedTemplate without placeholders"},
+		returns = {FUTURE, "the future that will complete with the message that was sent"},
+		examples = "message.replyWithEmbedAsync({'title': 'EMBED!'});"
+	)
+	public Future<Message> replyWithEmbedAsync(Arguments arguments) {
+		Message message = arguments.nextPrimitive(this);
+		ClassInstance embed = arguments.next();
+		return DiscordUtils.submit("replyEmbeds", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.replyEmbeds(DiscordUtils.parseEmbed(arguments.getInterpreter(), embed, null))));
+	}
+
+	@FunctionDoc(
+		name = "replyWithEmbedAsync",
+		desc = "This replies to the message with an embed template and the given placeholder values without waiting for it to be sent",
+		params = {
+			DISCORD_EMBED_TEMPLATE, "template", "the embed template",
+			MAP, "values", "the values of the placeholders"
+		},
+		returns = {FUTURE, "the future that will complete with the message that was sent"},
+		examples = "message.replyWithEmbedAsync(template, {'name': 'Sensei'});"
+	)
+	public Future<Message> replyWithEmbedTemplateAsync(Arguments arguments) {
+		Message message = arguments.nextPrimitive(this);
+		EmbedTemplate template = arguments.nextPrimitive(DiscordEmbedTemplateDef.class);
+		ArucasMap values = arguments.nextPrimitive(MapDef.class);
+		return DiscordUtils.submit("replyEmbeds", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.replyEmbeds(template.render(arguments.getInterpreter(), values))));
+	}
+
+	@FunctionDoc(
+		name = "replyWithFileAsync",
+		desc = "This replies to the message with the given file without waiting for it to be sent",
+		params = {FILE, "file", "the file"},
+		returns = {FUTURE, "the future that will complete with the message that was sent"},
+		examples = "message.replyWithFileAsync(new File('path/to/file'));"
+	)
+	public Future<Message> replyWithFileAsync(Arguments arguments) {
+		Message message = arguments.nextPrimitive(this);
+		File file = arguments.nextPrimitive(FileDef.class);
+		return DiscordUtils.submit("replyFiles", message.getChannel().getIdLong(), RuntimeError.wrap(() -> message.replyFiles(FileUpload.fromData(file))));
 	}
 }
@@ -0,0 +1,164 @@
+package me.senseiwells.arucas.discord.definitions;
+
+import me.senseiwells.arucas.api.docs.ClassDoc;
+import me.senseiwells.arucas.api.docs.FunctionDoc;
+import me.senseiwells.arucas.builtin.NumberDef;
+import me.senseiwells.arucas.classes.CreatableDefinition;
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.impl.DiscordMetrics;
+import me.senseiwells.arucas.utils.Arguments;
+import me.senseiwells.arucas.utils.MemberFunction;
+import me.senseiwells.arucas.utils.Util;
+
+import java.util.List;
+import java.util.Map;
+
+import static me.senseiwells.arucas.discord.DiscordAPI.DISCORD_METRICS;
+import static me.senseiwells.arucas.utils.Util.Types.*;
+
+@ClassDoc(
+	name = DISCORD_METRICS,
+	desc = {
+		"This class lets you read the metrics of a bot, all latencies are in milliseconds.",
+		"The same metrics are also exported over JMX under 'me.senseiwells.arucas.discord'."
+	},
+	importPath = "discordapi.Discord",
+	language = Util.Language.Java
+)
+public class DiscordMetricsDef extends CreatableDefinition<DiscordMetrics> {
+	public DiscordMetricsDef(Interpreter interpreter) {
+		super(DISCORD_METRICS, interpreter);
+	}
+
+	@Override
+	public List<MemberFunction> defineMethods() {
+		return List.of(
+			MemberFunction.of("getStats", this::getStats),
+			MemberFunction.of("getEventCounts", this::getEventCounts),
+			MemberFunction.of("getHandlerStats", this::getHandlerStats),
+			MemberFunction.of("getRestStats", this::getRestStats),
+			MemberFunction.of("getPending", this::getPending),
+			MemberFunction.of("getGatewayPing", this::getGatewayPing),
+			MemberFunction.of("getGatewayPings", this::getGatewayPings),
+			MemberFunction.of("getPingHistory", this::getPingHistory),
+			MemberFunction.of("getPingHistory", 1, this::getShardPingHistory)
+		);
+	}
+
+	@FunctionDoc(
+		name = "getStats",
+		desc = {
+			"This gets all of the metrics in a single map, the map contains 'events', 'handlers',",
+			"'rest', 'pending', and 'gateway' which hold the values of the other functions"
+		},
+		returns = {MAP, "all of the metrics"},
+		examples = "bot.getMetrics().getStats();"
+	)
+	public Map<String, Object> getStats(Arguments arguments) {
+		return arguments.nextPrimitive(this).getStats();
+	}
+
+	@FunctionDoc(
+		name = "getEventCounts",
+		desc = "This gets the number of events the bot has received, keyed by the name of the event",
+		returns = {MAP, "the event names mapped to their counts"},
+		examples = "bot.getMetrics().getEventCounts();"
+	)
+	public Map<String, Long> getEventCounts(Arguments arguments) {
+		return arguments.nextPrimitive(this).getEventCounts();
+	}
+
+	@FunctionDoc(
+		name = "getHandlerStats",
+		desc = {
+			"This gets the statistics of the event and command handlers, the map contains 'completed', 'errors',",
+			"'filtered' (handlers skipped because the event didn't match their filter),",
+			"'discarded' (a map of event type to handlers dropped or rejected by the overflow policy),",
+			"'coalesced' (events merged into another event's handler run),",
+			"'latency' (how long handlers ran for), 'wait' (how long events waited for a handler),",
+			"and 'total' (from the event being received to the handler finishing),",
+			"each latency is a map of 'count', 'mean', 'p50', 'p90', 'p99', and 'max'"
+		},
+		returns = {MAP, "the statistics of the handlers"},
+		examples = "bot.getMetrics().getHandlerStats();"
+	)
+	public Map<String, Object> getHandlerStats(Arguments arguments) {
+		return arguments.nextPrimitive(this).getHandlerStats();
+	}
+
+	@FunctionDoc(
+		name = "getRestStats",
+		desc = {
+			"This gets the statistics of every request the bot has sent, the map contains 'requests', 'errors',",
+			"'errorsDiscarded' (failures whose 'onRestError' function was dropped or rejected by the overflow policy),",
+			"and 'latency' which is a map of 'count', 'mean', 'p50', 'p90', 'p99', and 'max'"
+		},
+		returns = {MAP, "the statistics of the requests"},
+		examples = "bot.getMetrics().getRestStats();"
+	)
+	public Map<String, Object> getRestStats(Arguments arguments) {
+		return arguments.nextPrimitive(this).getRestStats();
+	}
+
+	@FunctionDoc(
+		name = "getPending",
+		desc = {
+			"This gets the work that is currently waiting or running, the map contains",
+			"'handlersQueued', 'handlersActive', 'restWaiting', and 'restRunning'"
+		},
+		returns = {MAP, "the pending work"},
+		examples = "bot.getMetrics().getPending();"
+	)
+	public Map<String, Long> getPending(Arguments arguments) {
+		return arguments.nextPrimitive(this).getPending();
+	}
+
+	@FunctionDoc(
+		name = "getGatewayPing",
+		desc = {
+			"This gets the average of each shard's last gateway ping, or -1 if none has been received yet,",
+			"a bot that isn't sharded only has shard 0"
+		},
+		returns = {NUMBER, "the gateway ping in milliseconds"},
+		examples = "bot.getMetrics().getGatewayPing();"
+	)
+	public long getGatewayPing(Arguments arguments) {
+		return arguments.nextPrimitive(this).getGatewayPing();
+	}
+
+	@FunctionDoc(
+		name = "getGatewayPings",
+		desc = "This gets the last gateway ping received by each shard, keyed by the shard id",
+		returns = {MAP, "the gateway pings in milliseconds"},
+		examples = "bot.getMetrics().getGatewayPings();"
+	)
+	public Map<Integer, Long> getGatewayPings(Arguments arguments) {
+		return arguments.nextPrimitive(this).getGatewayPings();
+	}
+
+	@FunctionDoc(
+		name = "getPingHistory",
+		desc = {
+			"This gets the last 60 gateway pings of each shard keyed by the shard id, each history is oldest first",
+			"and each map in it contains the 'time' in milliseconds since the epoch and the 'ping'"
+		},
+		returns = {MAP, "the ping history of each shard"},
+		examples = "bot.getMetrics().getPingHistory();"
+	)
+	public Map<Integer, List<Map<String, Object>>> getPingHistory(Arguments arguments) {
+		return arguments.nextPrimitive(this).getPingHistory();
+	}
+
+	@FunctionDoc(
+		name = "getPingHistory",
+		desc = "This gets the last 60 gateway pings of a shard, oldest first, in the same format as 'getPingHistory()'",
+		params = {NUMBER, "shardId", "the id of the shard"},
+		returns = {LIST, "the ping history of the shard"},
+		examples = "bot.getMetrics().getPingHistory(0);"
+	)
+	public List<Map<String, Object>> getShardPingHistory(Arguments arguments) {
+		DiscordMetrics metrics = arguments.nextPrimitive(this);
+		int shardId = arguments.nextPrimitive(NumberDef.class).intValue();
+		return metrics.getPingHistory(shardId);
+	}
+}
@@ -7,17 +7,22 @@ import me.senseiwells.arucas.builtin.StringDef;
 import me.senseiwells.arucas.classes.CreatableDefinition;
 import me.senseiwells.arucas.core.Interpreter;
 import me.senseiwells.arucas.discord.DiscordUtils;
+import me.senseiwells.arucas.discord.impl.Permissions;
 import me.senseiwells.arucas.exceptions.RuntimeError;
 import me.senseiwells.arucas.utils.Arguments;
+import me.senseiwells.arucas.utils.BuiltInFunction;
 import me.senseiwells.arucas.utils.MemberFunction;
 import me.senseiwells.arucas.utils.Util;
 import me.senseiwells.arucas.utils.impl.ArucasMap;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.entities.User;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static me.senseiwells.arucas.discord.DiscordAPI.DISCORD_SERVER;
@@ -35,6 +40,13 @@ public class DiscordServerDef extends CreatableDefinition<Guild> {
 		super(DISCORD_SERVER, interpreter);
 	}
 
+	@Override
+	public List<BuiltInFunction> defineStaticMethods() {
+		return List.of(
+			BuiltInFunction.of("getPermissionMask", 1, this::getPermissionMask)
+		);
+	}
+
 	@Nullable
 	@Override
 	public List<MemberFunction> defineMethods() {
@@ -45,7 +57,14 @@ public class DiscordServerDef extends CreatableDefinition<Guild> {
 			MemberFunction.of("getOwnerId", this::getOwnerId),
 			MemberFunction.of("getMemberCount", this::getMemberCount),
 			MemberFunction.of("getUserFromId", 1, this::getUserFromId),
-			MemberFunction.of("createRole", 1, this::createRole)
+			MemberFunction.of("createRole", 1, this::createRole),
+			MemberFunction.of("editRole", 2, this::editRole),
+			MemberFunction.of("hasPermissions", 2, this::hasPermissions),
+			MemberFunction.of("getPermissions", 1, this::getPermissions),
+			MemberFunction.of("banAsync", 1, this::banAsync),
+			MemberFunction.of("kickAsync", 1, this::kickAsync),
+			MemberFunction.of("unbanAsync", 1, this::unbanAsync),
+			MemberFunction.of("createRoleAsync", 1, this::createRoleAsync)
 		);
 	}
 
@@ -58,7 +77,7 @@ public class DiscordServerDef extends CreatableDefinition<Guild> {
 	public Void ban(Arguments arguments) {
 		Guild guild = arguments.nextPrimitive(this);
 		User user = arguments.nextPrimitive(DiscordUserDef.class);
-		RuntimeError.wrap(() -> guild.ban(user, 0, TimeUnit.SECONDS)).complete();
+		DiscordUtils.complete("ban", guild.getIdLong(), RuntimeError.wrap(() -> guild.ban(user, 0, TimeUnit.SECONDS)));
 		return null;
 	}
 
@@ -76,7 +95,7 @@ public class DiscordServerDef extends CreatableDefinition<Guild> {
 		if (member == null) {
 			return false;
 		}
-		RuntimeError.wrap(() -> guild.kick(member)).complete();
+		DiscordUtils.complete("kick", guild.getIdLong(), RuntimeError.wrap(() -> guild.kick(member)));
 		return true;
 	}
 
@@ -89,7 +108,7 @@ public class DiscordServerDef extends CreatableDefinition<Guild> {
 	public Void unban(Arguments arguments) {
 		Guild guild = arguments.nextPrimitive(this);
 		User user = arguments.nextPrimitive(DiscordUserDef.class);
-		RuntimeError.wrap(() -> guild.unban(user)).complete();
+		DiscordUtils.complete("unban", guild.getIdLong(), RuntimeError.wrap(() -> guild.unban(user)));
 		return null;
 	}
 
@@ -125,7 +144,7 @@ public class DiscordServerDef extends CreatableDefinition<Guild> {
 	public Member getUserFromId(Arguments arguments) {
 		Guild guild = arguments.nextPrimitive(this);
 		String id = arguments.nextPrimitive(StringDef.class);
-		return RuntimeError.wrap(() -> guild.retrieveMemberById(id)).complete();
+		return DiscordUtils.complete("retrieveMemberById", guild.getIdLong(), RuntimeError.wrap(() -> guild.retrieveMemberById(id)));
 	}
 
 	@FunctionDoc(
@@ -134,7 +153,8 @@ public class DiscordServerDef extends CreatableDefinition<Guild> {
 			"This creates a role in the server",
 			"In the role map you can have the following keys:",
 			"'name' as String, 'colour'/'color' as Number, 'hoisted' as Boolean, 'mentionable as Boolean'",
-			"and 'permissions' as a List of Strings, for example ['Manage Channels', 'Manage Server'], see Discord for more"
+			"and 'permissions' as a List of Strings, for example ['Manage Channels', 'Manage Server'], see Discord for more,",
+			"or as a permission mask from 'DiscordServer.getPermissionMask'"
 		},
 		params = {MAP, "roleMap", "the map of the role"},
 		examples = """
@@ -150,7 +170,140 @@ public class DiscordServerDef extends CreatableDefinition<Guild> {
 	public Void createRole(Arguments arguments) {
 		Guild guild = arguments.nextPrimitive(this);
 		ArucasMap roleMap = arguments.nextPrimitive(MapDef.class);
-		DiscordUtils.parseMapAsRole(arguments.getInterpreter(), RuntimeError.wrap(guild::createRole), roleMap);
+		DiscordUtils.complete("createRole", guild.getIdLong(), DiscordUtils.parseMapAsRole(arguments.getInterpreter(), RuntimeError.wrap(guild::createRole), roleMap));
 		return null;
 	}
+
+	@FunctionDoc(
+		name = "banAsync",
+		desc = "This bans a user from the server without waiting for the ban to complete",
+		params = {DISCORD_USER, "user", "the user to ban"},
+		returns = {FUTURE, "the future that will complete when the user has been banned"},
+		examples = "server.banAsync(user);"
+	)
+	public Future<Void> banAsync(Arguments arguments) {
+		Guild guild = arguments.nextPrimitive(this);
+		User user = arguments.nextPrimitive(DiscordUserDef.class);
+		return DiscordUtils.submit("ban", guild.getIdLong(), RuntimeError.wrap(() -> guild.ban(user, 0, TimeUnit.SECONDS)));
+	}
+
+	@FunctionDoc(
+		name = "kickAsync",
+		desc = "This kicks a user from the server without waiting for the kick to complete",
+		params = {DISCORD_USER, "user", "the user to kick"},
+		returns = {FUTURE, "the future that will complete with whether the kick was successful"},
+		examples = "server.kickAsync(user);"
+	)
+	public Future<Boolean> kickAsync(Arguments arguments) {
+		Guild guild = arguments.nextPrimitive(this);
+		User user = arguments.nextPrimitive(DiscordUserDef.class);
+		Member member = RuntimeError.wrap(() -> guild.getMember(user));
+		if (member == null) {
+			return CompletableFuture.completedFuture(false);
+		}
+		return DiscordUtils.submit("kick", guild.getIdLong(), RuntimeError.wrap(() -> guild.kick(member))).thenApply(v -> true);
+	}
+
+	@FunctionDoc(
+		name = "unbanAsync",
+		desc = "This unbans a user from the server without waiting for the unban to complete",
+		params = {DISCORD_USER, "user", "the user to unban"},
+		returns = {FUTURE, "the future that will complete when the user has been unbanned"},
+		examples = "server.unbanAsync(user);"
+	)
+	public Future<Void> unbanAsync(Arguments arguments) {
+		Guild guild = arguments.nextPrimitive(this);
+		User user = arguments.nextPrimitive(DiscordUserDef.class);
+		return DiscordUtils.submit("unban", guild.getIdLong(), RuntimeError.wrap(() -> guild.unban(user)));
+	}
+
+	@FunctionDoc(
+		name = "createRoleAsync",
+		desc = {
+			"This creates a role in the server without waiting for it to be created,",
+			"the role map is the same as in 'createRole'"
+		},
+		params = {MAP, "roleMap", "the map of the role"},
+		returns = {FUTURE, "the future that will complete when the role has been created"},
+		examples = "server.createRoleAsync({'name': 'new role'});"
+	)
+	public Future<Void> createRoleAsync(Arguments arguments) {
+		Guild guild = arguments.nextPrimitive(this);
+		ArucasMap roleMap = arguments.nextPrimitive(MapDef.class);
+		return DiscordUtils.submit("createRole", guild.getIdLong(), DiscordUtils.parseMapAsRole(arguments.getInterpreter(), RuntimeError.wrap(guild::createRole), roleMap)).thenApply(role -> null);
+	}
+
+	@FunctionDoc(
+		isStatic = true,
+		name = "getPermissionMask",
+		desc = {
+			"This converts a list of permission names into a permission mask,",
+			"masks can be used anywhere permissions are accepted and are faster to check"
+		},
+		params = {LIST, "permissions", "the permission names, for example ['Ban Members', 'Kick Members']"},
+		returns = {NUMBER, "the permission mask"},
+		examples = "MODERATOR = DiscordServer.getPermissionMask(['Ban Members', 'Kick Members']);"
+	)
+	public double getPermissionMask(Arguments arguments) {
+		return Permissions.parseMask(arguments.getInterpreter(), arguments.next());
+	}
+
+	@FunctionDoc(
+		name = "editRole",
+		desc = {
+			"This edits a role in the server, only the keys in the role map are changed,",
+			"the role map is the same as in 'createRole'"
+		},
+		params = {
+			STRING, "roleId", "the id of the role",
+			MAP, "roleMap", "the map of the changes"
+		},
+		examples = "server.editRole('12345678901234567890123456789012', {'permissions': ['Ban Members']});"
+	)
+	public Void editRole(Arguments arguments) {
+		Guild guild = arguments.nextPrimitive(this);
+		String id = arguments.nextPrimitive(StringDef.class);
+		ArucasMap roleMap = arguments.nextPrimitive(MapDef.class);
+		Role role = RuntimeError.wrap(() -> guild.getRoleById(id));
+		if (role == null) {
+			throw new RuntimeError("Role with id '%s' couldn't be found".formatted(id));
+		}
+		DiscordUtils.sideEffect("editRole", guild.getIdLong(), DiscordUtils.parseMapAsRoleEdit(arguments.getInterpreter(), role.getManager(), roleMap));
+		return null;
+	}
+
+	@FunctionDoc(
+		name = "hasPermissions",
+		desc = "This checks whether a user has all of the given permissions in the server",
+		params = {
+			DISCORD_USER, "user", "the user to check",
+			LIST, "permissions", "the permission names or a permission mask"
+		},
+		returns = {BOOLEAN, "whether the user has the permissions"},
+		examples = "server.hasPermissions(user, ['Ban Members']);"
+	)
+	public Boolean hasPermissions(Arguments arguments) {
+		Guild guild = arguments.nextPrimitive(this);
+		User user = arguments.nextPrimitive(DiscordUserDef.class);
+		long required = Permissions.parseMask(arguments.getInterpreter(), arguments.next());
+		return Permissions.has(this.getMember(guild, user), null, required);
+	}
+
+	@FunctionDoc(
+		name = "getPermissions",
+		desc = "This gets the names of the permissions a user has in the server",
+		params = {DISCORD_USER, "user", "the user"},
+		returns = {LIST, "the names of the permissions"},
+		examples = "server.getPermissions(user);"
+	)
+	public List<String> getPermissions(Arguments arguments) {
+		Guild guild = arguments.nextPrimitive(this);
+		User user = arguments.nextPrimitive(DiscordUserDef.class);
+		return Permissions.getNames(Permissions.getEffective(this.getMember(guild, user)));
+	}
+
+	private Member getMember(Guild guild, User user) {
+		Member member = guild.getMember(user);
+		return member != null ? member : DiscordUtils.complete("retrieveMember", guild.getIdLong(), RuntimeError.wrap(() -> guild.retrieveMember(user)));
+	}
 }
@@ -0,0 +1,184 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.Compression;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+
+import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The defaults only keep what the API itself needs, scripts opt in to anything heavier
+public class BotOptions {
+	private final EnumSet<GatewayIntent> intents;
+	private final EnumSet<CacheFlag> cacheFlags;
+	private MemberCachePolicy memberCachePolicy;
+	private ChunkingFilter chunkingFilter;
+	private Compression compression;
+	private int largeThreshold;
+	private int eventPoolSize;
+	private boolean sharded;
+	private int shardsTotal;
+	private int firstShard;
+	private int lastShard;
+
+	public BotOptions() {
+		this.intents = EnumSet.copyOf(GatewayIntent.getIntents(GatewayIntent.DEFAULT));
+		this.cacheFlags = EnumSet.noneOf(CacheFlag.class);
+		this.memberCachePolicy = MemberCachePolicy.NONE;
+		this.chunkingFilter = ChunkingFilter.NONE;
+		this.compression = Compression.ZLIB;
+		this.largeThreshold = 50;
+		this.eventPoolSize = 0;
+		this.sharded = false;
+		this.shardsTotal = -1;
+		this.firstShard = -1;
+		this.lastShard = -1;
+	}
+
+	public void setIntents(EnumSet<GatewayIntent> intents) {
+		this.intents.clear();
+		this.intents.addAll(intents);
+	}
+
+	public void setCacheFlags(EnumSet<CacheFlag> cacheFlags) {
+		this.cacheFlags.clear();
+		this.cacheFlags.addAll(cacheFlags);
+	}
+
+	public void setMemberCachePolicy(MemberCachePolicy memberCachePolicy) {
+		this.memberCachePolicy = memberCachePolicy;
+	}
+
+	public void setChunkingFilter(ChunkingFilter chunkingFilter) {
+		this.chunkingFilter = chunkingFilter;
+	}
+
+	public void setCompression(boolean compress) {
+		this.compression = compress ? Compression.ZLIB : Compression.NONE;
+	}
+
+	public void setLargeThreshold(int largeThreshold) {
+		if (largeThreshold < 50 || largeThreshold > 250) {
+			throw new RuntimeError("Large threshold must be between 50 and 250");
+		}
+		this.largeThreshold = largeThreshold;
+	}
+
+	// With more than one thread events from a shard can reach onEvent out of order, and
+	// KeyedSequencer only keeps the order events arrive in, so sequenced handlers lose theirs
+	public void setEventPoolSize(int eventPoolSize) {
+		if (eventPoolSize < 0) {
+			throw new RuntimeError("Event pool size cannot be negative");
+		}
+		this.eventPoolSize = eventPoolSize;
+	}
+
+	public void setShardsTotal(int shardsTotal) {
+		if (shardsTotal == 0 || shardsTotal < -1) {
+			throw new RuntimeError("Shard count must be positive, or -1 for Discord's recommended count");
+		}
+		this.sharded = true;
+		this.shardsTotal = shardsTotal;
+	}
+
+	public void setShardRange(int firstShard, int lastShard) {
+		if (firstShard < 0 || lastShard < firstShard) {
+			throw new RuntimeError("Invalid shard range %d to %d".formatted(firstShard, lastShard));
+		}
+		this.sharded = true;
+		this.firstShard = firstShard;
+		this.lastShard = lastShard;
+	}
+
+	public boolean isSharded() {
+		return this.sharded;
+	}
+
+	public JDABuilder createBuilder(String token) {
+		JDABuilder builder = JDABuilder.createLight(token, this.intents)
+			.enableCache(this.cacheFlags)
+			.setMemberCachePolicy(this.memberCachePolicy)
+			.setChunkingFilter(this.chunkingFilter)
+			.setCompression(this.compression)
+			.setLargeThreshold(this.largeThreshold);
+		if (this.eventPoolSize > 0) {
+			builder.setEventPool(this.createEventPool(), true);
+		}
+		return builder;
+	}
+
+	public DefaultShardManagerBuilder createShardBuilder(String token) {
+		if (this.firstShard >= 0 && this.shardsTotal != -1 && this.lastShard >= this.shardsTotal) {
+			throw new RuntimeError("Shard range must be below the shard count %d".formatted(this.shardsTotal));
+		}
+		DefaultShardManagerBuilder builder = DefaultShardManagerBuilder.createLight(token, this.intents)
+			.enableCache(this.cacheFlags)
+			.setMemberCachePolicy(this.memberCachePolicy)
+			.setChunkingFilter(this.chunkingFilter)
+			.setCompression(this.compression)
+			.setLargeThreshold(this.largeThreshold)
+			.setShardsTotal(this.shardsTotal);
+		if (this.firstShard >= 0) {
+			builder.setShards(this.firstShard, this.lastShard);
+		}
+		if (this.eventPoolSize > 0) {
+			// All shards share one pool so the threads are spread over the shards' events
+			builder.setEventPool(this.createEventPool(), true);
+		}
+		return builder;
+	}
+
+	private ExecutorService createEventPool() {
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(this.eventPoolSize, runnable -> {
+			Thread thread = new Thread(runnable, "Arucas Discord Event " + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public static GatewayIntent parseIntent(String name) {
+		return parseEnum(GatewayIntent.class, name, "intent");
+	}
+
+	public static CacheFlag parseCacheFlag(String name) {
+		return parseEnum(CacheFlag.class, name, "cache flag");
+	}
+
+	public static MemberCachePolicy parseMemberCachePolicy(String name) {
+		return switch (name.toLowerCase()) {
+			case "none" -> MemberCachePolicy.NONE;
+			case "all" -> MemberCachePolicy.ALL;
+			case "online" -> MemberCachePolicy.ONLINE;
+			case "voice" -> MemberCachePolicy.VOICE;
+			case "owner" -> MemberCachePolicy.OWNER;
+			case "pending" -> MemberCachePolicy.PENDING;
+			case "boosters" -> MemberCachePolicy.BOOSTER;
+			case "default" -> MemberCachePolicy.DEFAULT;
+			default -> throw new RuntimeError("'%s' is an invalid member cache policy".formatted(name));
+		};
+	}
+
+	public static ChunkingFilter parseChunkingFilter(String name) {
+		return switch (name.toLowerCase()) {
+			case "none" -> ChunkingFilter.NONE;
+			case "all" -> ChunkingFilter.ALL;
+			default -> throw new RuntimeError("'%s' is an invalid chunking filter".formatted(name));
+		};
+	}
+
+	private static <E extends Enum<E>> E parseEnum(Class<E> type, String name, String description) {
+		try {
+			return Enum.valueOf(type, name.toUpperCase().replace(' ', '_'));
+		} catch (IllegalArgumentException e) {
+			throw new RuntimeError("'%s' is an invalid %s".formatted(name, description));
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.discord.DiscordUtils;
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import net.dv8tion.jda.api.entities.ISnowflake;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildMessageChannel;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.utils.TimeUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BulkDeleter {
+	private static final int BULK_LIMIT = 100;
+	// Discord rejects bulk deletes of messages older than two weeks, the margin covers clock drift
+	private static final long BULK_MAX_AGE = TimeUnit.DAYS.toMillis(14) - TimeUnit.MINUTES.toMillis(5);
+
+	public static CompletableFuture<Map<String, Object>> purge(MessageChannel channel, int amount) {
+		if (amount < 1) {
+			throw new RuntimeError("Purge amount must be at least 1 but was %d".formatted(amount));
+		}
+		return channel.getIterableHistory().takeAsync(amount).thenCompose(messages -> {
+			return delete(channel, messages.stream().map(ISnowflake::getIdLong).toList());
+		});
+	}
+
+	public static CompletableFuture<Map<String, Object>> delete(MessageChannel channel, Collection<Long> messageIds) {
+		List<String> recent = new ArrayList<>();
+		List<Long> old = new ArrayList<>();
+		long oldest = System.currentTimeMillis() - BULK_MAX_AGE;
+		boolean canBulk = channel instanceof GuildMessageChannel;
+		// Discord rejects a bulk delete that contains the same message twice
+		for (long id : new LinkedHashSet<>(messageIds)) {
+			if (canBulk && getCreationTime(id) > oldest) {
+				recent.add(Long.toUnsignedString(id));
+			} else {
+				old.add(id);
+			}
+		}
+
+		AtomicInteger bulk = new AtomicInteger();
+		AtomicInteger single = new AtomicInteger();
+		AtomicInteger failed = new AtomicInteger();
+		List<CompletableFuture<?>> futures = new ArrayList<>();
+		for (int i = 0; i < recent.size(); i += BULK_LIMIT) {
+			List<String> chunk = recent.subList(i, Math.min(i + BULK_LIMIT, recent.size()));
+			if (chunk.size() == 1) {
+				// Bulk deletes need at least two messages
+				old.add(Long.parseUnsignedLong(chunk.get(0)));
+				continue;
+			}
+			GuildMessageChannel guildChannel = (GuildMessageChannel) channel;
+			futures.add(count("deleteMessagesByIds", channel, guildChannel.deleteMessagesByIds(chunk), chunk.size(), bulk, failed));
+		}
+		// These are all queued at once, but the channel's bucket only takes one bulk lane slot so they run one at a time
+		for (long id : old) {
+			futures.add(count("deleteMessageById", channel, channel.deleteMessageById(id), 1, single, failed));
+		}
+
+		return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenApply(v -> Map.of(
+			"bulk", bulk.get(),
+			"single", single.get(),
+			"failed", failed.get()
+		));
+	}
+
+	private static CompletableFuture<?> count(String route, MessageChannel channel, RestAction<?> action, int size, AtomicInteger success, AtomicInteger failed) {
+		// Deletes run in the bulk lane so they never hold up replies, purges of different channels run side by side
+		return DiscordUtils.submit(RestScheduler.Lane.BULK, route, channel.getIdLong(), action).handle((v, throwable) -> {
+			(throwable == null ? success : failed).addAndGet(size);
+			return null;
+		});
+	}
+
+	private static long getCreationTime(long id) {
+		return (id >>> TimeUtil.TIMESTAMP_OFFSET) + TimeUtil.DISCORD_EPOCH;
+	}
+}
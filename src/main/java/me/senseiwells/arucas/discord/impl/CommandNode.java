@@ -0,0 +1,60 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.classes.ClassInstance;
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.DiscordUtils;
+import me.senseiwells.arucas.discord.DiscordUtils.LocatedFunction;
+import net.dv8tion.jda.api.events.interaction.command.GenericCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CommandNode {
+	private final String command;
+	private final LocatedFunction function;
+	private final String[] options;
+	private final LocatedFunction[] byOptionCount;
+
+	private CommandNode(String command, LocatedFunction function, String[] options, LocatedFunction[] byOptionCount) {
+		this.command = command;
+		this.function = function;
+		this.options = options;
+		this.byOptionCount = byOptionCount;
+	}
+
+	// The handler is passed every declared option in order, options that weren't given are null
+	public static CommandNode of(String command, LocatedFunction function, List<String> options) {
+		return new CommandNode(command, function, options.toArray(String[]::new), null);
+	}
+
+	// Commands defined with 'next' pick their handler by how many options were given
+	public static CommandNode chained(String command, List<LocatedFunction> byOptionCount) {
+		return new CommandNode(command, null, null, byOptionCount.toArray(LocatedFunction[]::new));
+	}
+
+	public String getCommand() {
+		return this.command;
+	}
+
+	public LocatedFunction getFunction(GenericCommandInteractionEvent event) {
+		if (this.byOptionCount == null) {
+			return this.function;
+		}
+		int optionCount = event.getOptions().size();
+		return optionCount < this.byOptionCount.length ? this.byOptionCount[optionCount] : null;
+	}
+
+	public List<ClassInstance> getArguments(Interpreter interpreter, GenericCommandInteractionEvent event) {
+		if (this.options == null) {
+			return DiscordUtils.getParameters(interpreter, event);
+		}
+		List<ClassInstance> arguments = new ArrayList<>(this.options.length + 1);
+		arguments.add(interpreter.convertValue(event));
+		for (String option : this.options) {
+			OptionMapping mapping = event.getOption(option);
+			arguments.add(mapping == null ? interpreter.convertValue(null) : DiscordUtils.parseMapping(interpreter, mapping));
+		}
+		return arguments;
+	}
+}
@@ -0,0 +1,114 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.discord.DiscordUtils;
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.requests.restaction.CommandListUpdateAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Holds every added command so they can be pushed in one request, skipped when the last push had the same hash
+public class CommandSync {
+	private final Map<String, CommandData> commands;
+	private final Map<String, String> pushed;
+	private volatile boolean enabled;
+
+	public CommandSync() {
+		this.commands = new LinkedHashMap<>();
+		this.pushed = new ConcurrentHashMap<>();
+		this.enabled = false;
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public synchronized void add(CommandData data) {
+		this.commands.put(data.getName(), data);
+	}
+
+	public synchronized boolean remove(String name) {
+		return this.commands.remove(name) != null;
+	}
+
+	// Returns the pushed commands, or null if nothing changed since the last push to the target
+	public List<Command> sync(CommandListUpdateAction action, String target, File hashFile) {
+		List<CommandData> data;
+		synchronized (this) {
+			data = new ArrayList<>(this.commands.values());
+		}
+		data.sort(Comparator.comparing(CommandData::getName));
+		String hash = hash(data);
+		String previous = this.pushed.get(target);
+		if (previous == null && hashFile != null) {
+			previous = readHashes(hashFile).getProperty(target);
+		}
+		if (hash.equals(previous)) {
+			return null;
+		}
+
+		List<Command> commands = DiscordUtils.complete("updateCommands", action.addCommands(data));
+		this.pushed.put(target, hash);
+		if (hashFile != null) {
+			writeHash(hashFile, target, hash);
+		}
+		return commands;
+	}
+
+	private static String hash(List<CommandData> commands) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		for (CommandData data : commands) {
+			digest.update(data.toData().toJson());
+		}
+		StringBuilder builder = new StringBuilder();
+		for (byte b : digest.digest()) {
+			builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return builder.toString();
+	}
+
+	private static synchronized Properties readHashes(File hashFile) {
+		Properties properties = new Properties();
+		if (hashFile.isFile()) {
+			try (InputStream stream = Files.newInputStream(hashFile.toPath())) {
+				properties.load(stream);
+			} catch (IOException e) {
+				throw new RuntimeError("Failed to read command hashes from '%s': %s".formatted(hashFile, e.getMessage()));
+			}
+		}
+		return properties;
+	}
+
+	private static synchronized void writeHash(File hashFile, String target, String hash) {
+		Properties properties = readHashes(hashFile);
+		properties.setProperty(target, hash);
+		try (OutputStream stream = Files.newOutputStream(hashFile.toPath())) {
+			properties.store(stream, "Hashes of the last pushed slash commands");
+		} catch (IOException e) {
+			throw new RuntimeError("Failed to write command hashes to '%s': %s".formatted(hashFile, e.getMessage()));
+		}
+	}
+}
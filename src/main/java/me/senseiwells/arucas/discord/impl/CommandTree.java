@@ -0,0 +1,42 @@
+package me.senseiwells.arucas.discord.impl;
+
+import net.dv8tion.jda.api.events.interaction.command.GenericCommandInteractionEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Every command, group and subcommand is flattened into one immutable map keyed by its full path
+public class CommandTree {
+	private volatile Map<String, CommandNode> nodes;
+
+	public CommandTree() {
+		this.nodes = Map.of();
+	}
+
+	public synchronized void register(String command, Map<String, CommandNode> commandNodes) {
+		Map<String, CommandNode> copy = new HashMap<>(this.nodes);
+		copy.values().removeIf(node -> node.getCommand().equals(command));
+		copy.putAll(commandNodes);
+		this.nodes = Map.copyOf(copy);
+	}
+
+	public synchronized boolean remove(String command) {
+		Map<String, CommandNode> copy = new HashMap<>(this.nodes);
+		if (!copy.values().removeIf(node -> node.getCommand().equals(command))) {
+			return false;
+		}
+		this.nodes = Map.copyOf(copy);
+		return true;
+	}
+
+	public CommandNode get(GenericCommandInteractionEvent event) {
+		return this.nodes.get(getPath(event.getName(), event.getSubcommandGroup(), event.getSubcommandName()));
+	}
+
+	public static String getPath(String command, String group, String subcommand) {
+		if (subcommand == null) {
+			return command;
+		}
+		return group == null ? command + "/" + subcommand : command + "/" + group + "/" + subcommand;
+	}
+}
@@ -1,91 +1,461 @@
 package me.senseiwells.arucas.discord.impl;
 
+import me.senseiwells.arucas.classes.ClassInstance;
 import me.senseiwells.arucas.core.Interpreter;
 import me.senseiwells.arucas.discord.DiscordUtils;
 import me.senseiwells.arucas.discord.DiscordUtils.LocatedFunction;
+import me.senseiwells.arucas.exceptions.RuntimeError;
 import me.senseiwells.arucas.utils.ArucasFunction;
 import me.senseiwells.arucas.utils.impl.ArucasMap;
 import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.OnlineStatus;
+import net.dv8tion.jda.api.entities.Activity;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.SelfUser;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.events.GatewayPingEvent;
 import net.dv8tion.jda.api.events.GenericEvent;
 import net.dv8tion.jda.api.events.interaction.command.GenericCommandInteractionEvent;
+import net.dv8tion.jda.api.events.message.GenericMessageEvent;
+import net.dv8tion.jda.api.events.message.MessageDeleteEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.message.MessageUpdateEvent;
 import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.interactions.commands.Command;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.sharding.ShardManager;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
 
 public class DiscordBot implements EventListener {
-	private final Map<String, List<LocatedFunction>> commandMap;
-	private final Map<String, List<LocatedFunction>> eventMap;
+	// Keyed by the JDA instance, or by the shard manager when the bot is sharded
+	private static final Map<Object, DiscordBot> BOTS = new ConcurrentHashMap<>();
+
+	private final CommandTree commands;
+	private final EventRegistry events;
+	private final TextCommandTrie textCommands;
 	private final Map<String, Long> commandIds;
+	private final CommandSync commandSync;
+	private final HandlerExecutor handlers;
+	private final ScheduledExecutorService coalesceScheduler;
+	private final MessageCache messageCache;
+	private final DiscordMetrics metrics;
+	private final RestScheduler restScheduler;
+	private final Map<Integer, EventRate> eventRates;
 	private final JDA jda;
+	private final ShardManager shardManager;
+	private volatile boolean queueSideEffects;
+	private volatile boolean stopped;
+	private volatile LocatedFunction restErrorHandler;
 
 	public DiscordBot(JDA jda, Interpreter interpreter) {
-		this.commandMap = new HashMap<>();
-		this.eventMap = new HashMap<>();
-		this.commandIds = new HashMap<>();
+		this(jda, null, interpreter);
+	}
+
+	public DiscordBot(ShardManager shardManager, Interpreter interpreter) {
+		this(null, shardManager, interpreter);
+	}
+
+	private DiscordBot(JDA jda, ShardManager shardManager, Interpreter interpreter) {
+		this.metrics = new DiscordMetrics();
+		this.commands = new CommandTree();
+		this.events = new EventRegistry(this.metrics::getEventCounter);
+		this.textCommands = new TextCommandTrie();
+		this.commandIds = new ConcurrentHashMap<>();
+		this.commandSync = new CommandSync();
+		this.handlers = new HandlerExecutor();
+		this.coalesceScheduler = EventCoalescer.createScheduler();
+		this.messageCache = new MessageCache();
+		this.restScheduler = new RestScheduler(this.metrics);
+		this.eventRates = new ConcurrentHashMap<>();
 		this.jda = jda;
+		this.shardManager = shardManager;
+
+		this.metrics.addPending("handlersQueued", this.handlers::getQueueDepth);
+		this.metrics.addPending("handlersActive", this.handlers::getActive);
+		this.metrics.addPending("restWaiting", this.restScheduler::getWaiting);
+		this.metrics.addPending("restRunning", this.restScheduler::getRunning);
+		this.metrics.register();
 
-		jda.addEventListener(this);
-		interpreter.getThreadHandler().addShutdownEvent(jda::shutdownNow);
+		BOTS.put(this.getOwner(), this);
+		if (shardManager == null) {
+			jda.addEventListener(this);
+		} else {
+			// The shard manager also adds the listener to shards that start later
+			shardManager.addEventListener(this);
+		}
+		interpreter.getThreadHandler().addShutdownEvent(() -> {
+			// Handlers die with the interpreter, queued ones are dropped and running ones are interrupted
+			this.stopped = true;
+			if (shardManager == null) {
+				jda.shutdownNow();
+			} else {
+				shardManager.shutdown();
+			}
+			this.handlers.shutdownNow();
+			this.release();
+		});
+	}
+
+	@Nullable
+	public static DiscordBot get(JDA jda) {
+		DiscordBot bot = BOTS.get(jda);
+		if (bot == null && jda.getShardManager() != null) {
+			bot = BOTS.get(jda.getShardManager());
+		}
+		return bot;
 	}
 
+	public boolean isSharded() {
+		return this.shardManager != null;
+	}
+
+	public List<JDA> getShards() {
+		return this.shardManager == null ? List.of(this.jda) : this.shardManager.getShards();
+	}
+
+	// Any shard can be used for requests that are not tied to a server
 	public JDA getJda() {
-		return this.jda;
+		if (this.shardManager == null) {
+			return this.jda;
+		}
+		List<JDA> shards = this.shardManager.getShards();
+		if (shards.isEmpty()) {
+			throw new RuntimeError("No shards have been started");
+		}
+		return shards.get(0);
+	}
+
+	public SelfUser getSelfUser() {
+		return this.getJda().getSelfUser();
+	}
+
+	public void setActivity(Activity activity) {
+		if (this.shardManager == null) {
+			this.jda.getPresence().setActivity(activity);
+		} else {
+			this.shardManager.setActivity(activity);
+		}
+	}
+
+	public Activity getActivity() {
+		return this.getJda().getPresence().getActivity();
+	}
+
+	public void setStatus(OnlineStatus status) {
+		if (this.shardManager == null) {
+			this.jda.getPresence().setStatus(status);
+		} else {
+			this.shardManager.setStatus(status);
+		}
+	}
+
+	public OnlineStatus getStatus() {
+		return this.getJda().getPresence().getStatus();
+	}
+
+	@Nullable
+	public MessageChannel getChannelById(String id) {
+		for (JDA shard : this.getShards()) {
+			MessageChannel channel = shard.getChannelById(MessageChannel.class, id);
+			if (channel != null) {
+				return channel;
+			}
+		}
+		return null;
+	}
+
+	@Nullable
+	public Guild getGuildById(String id) {
+		// The shard manager works out which shard owns the server from its id
+		return this.shardManager == null ? this.jda.getGuildById(id) : this.shardManager.getGuildById(id);
+	}
+
+	public void shutdown() {
+		if (this.shardManager == null) {
+			this.jda.shutdown();
+		} else {
+			this.shardManager.shutdown();
+		}
+		// Handlers that are already queued still run
+		this.handlers.shutdown();
+		this.release();
+	}
+
+	// A bot that was shut down can't be found or exported anymore, so creating a new one doesn't leak it
+	private void release() {
+		BOTS.remove(this.getOwner(), this);
+		this.coalesceScheduler.shutdownNow();
+		this.metrics.unregister();
+	}
+
+	private Object getOwner() {
+		return this.shardManager == null ? this.jda : this.shardManager;
+	}
+
+	public List<Map<String, Object>> getShardStats() {
+		List<Map<String, Object>> stats = new ArrayList<>();
+		for (JDA shard : this.getShards()) {
+			int shardId = shard.getShardInfo().getShardId();
+			EventRate rate = this.eventRates.get(shardId);
+			stats.add(Map.of(
+				"shard", shardId,
+				"status", shard.getStatus().name(),
+				"ping", shard.getGatewayPing(),
+				"servers", shard.getGuildCache().size(),
+				"events", rate == null ? 0L : rate.getTotal(),
+				"eventRate", rate == null ? 0.0 : rate.getRate()
+			));
+		}
+		return stats;
+	}
+
+	public HandlerExecutor getHandlers() {
+		return this.handlers;
+	}
+
+	public MessageCache getMessageCache() {
+		return this.messageCache;
+	}
+
+	public DiscordMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	public RestScheduler getRestScheduler() {
+		return this.restScheduler;
+	}
+
+	public boolean isQueueingSideEffects() {
+		return this.queueSideEffects;
+	}
+
+	public void setQueueSideEffects(boolean queueSideEffects) {
+		this.queueSideEffects = queueSideEffects;
+	}
+
+	public void setRestErrorHandler(Interpreter interpreter, ArucasFunction function) {
+		this.restErrorHandler = new LocatedFunction(interpreter, function);
+	}
+
+	public void onRestFailure(Throwable throwable) {
+		LocatedFunction handler = this.restErrorHandler;
+		if (handler == null) {
+			RestAction.getDefaultFailure().accept(throwable);
+			return;
+		}
+		String message = throwable.getMessage() == null ? throwable.getClass().getSimpleName() : throwable.getMessage();
+		if (!this.handlers.execute(this.createTask(handler, branch -> List.of(branch.convertValue(message))))) {
+			this.metrics.recordRestErrorDiscarded();
+		}
 	}
 
 	public void registerEvent(Interpreter interpreter, ArucasFunction function, String eventName) {
-		List<LocatedFunction> eventListeners = this.eventMap.computeIfAbsent(eventName, k -> new ArrayList<>());
-		eventListeners.add(new LocatedFunction(interpreter, function));
+		this.registerEvent(eventName, new EventSubscription(new LocatedFunction(interpreter, function)));
+	}
+
+	public void registerEvent(String eventName, EventSubscription subscription) {
+		this.events.register(eventName, subscription);
+	}
+
+	public void addTextCommand(Interpreter interpreter, String prefix, String name, ArucasFunction function) {
+		this.textCommands.register(prefix, name, new LocatedFunction(interpreter, function));
+	}
+
+	public boolean removeTextCommand(String prefix, String name) {
+		return this.textCommands.remove(prefix, name);
 	}
 
 	public void addCommand(Interpreter interpreter, ArucasMap commandMap) {
-		CommandData data = DiscordUtils.parseMapAsCommand(interpreter, this.commandMap, commandMap);
-		this.commandIds.put(data.getName(), this.jda.upsertCommand(data).complete().getIdLong());
+		Map<String, CommandNode> nodes = new HashMap<>();
+		CommandData data = DiscordUtils.parseMapAsCommand(interpreter, nodes, commandMap);
+		this.commands.register(data.getName(), nodes);
+		// Every command is kept so a sync never removes commands that were upserted directly
+		this.commandSync.add(data);
+		if (this.commandSync.isEnabled()) {
+			return;
+		}
+		this.commandIds.put(data.getName(), DiscordUtils.complete("upsertCommand", this.getJda().upsertCommand(data)).getIdLong());
+	}
+
+	public void setCommandSync(boolean enabled) {
+		this.commandSync.setEnabled(enabled);
+	}
+
+	// Pushes every added command in one request, returns false if they were unchanged
+	public boolean syncCommands(@Nullable Guild guild, @Nullable File hashFile) {
+		if (guild == null) {
+			List<Command> commands = this.commandSync.sync(this.getJda().updateCommands(), "global", hashFile);
+			if (commands == null) {
+				// The push was skipped, after a restart the ids are only known by asking Discord
+				if (this.commandIds.isEmpty()) {
+					for (Command command : DiscordUtils.complete("retrieveCommands", this.getJda().retrieveCommands())) {
+						this.commandIds.put(command.getName(), command.getIdLong());
+					}
+				}
+				return false;
+			}
+			this.commandIds.clear();
+			for (Command command : commands) {
+				this.commandIds.put(command.getName(), command.getIdLong());
+			}
+			return true;
+		}
+		return this.commandSync.sync(guild.updateCommands(), guild.getId(), hashFile) != null;
 	}
 
 	public void removeCommand(String commandName) {
-		if (this.commandMap.remove(commandName) != null) {
+		// Batched commands are removed from Discord by the next sync
+		this.commandSync.remove(commandName);
+		if (this.commands.remove(commandName)) {
 			Long id = this.commandIds.remove(commandName);
-			this.jda.deleteCommandById(id).queue();
+			if (id != null) {
+				DiscordUtils.submit("deleteCommandById", this.getJda().deleteCommandById(id));
+			}
 		}
 	}
 
 	@Override
 	public void onEvent(@NotNull GenericEvent event) {
+		// One lookup gives both the listeners and the type's counter, most gateway events have no listeners
+		EventRegistry.Listeners listeners = this.events.getListeners(event.getClass());
+		listeners.received().increment();
+		int shardId = event.getJDA().getShardInfo().getShardId();
+		EventRate rate = this.eventRates.get(shardId);
+		if (rate == null) {
+			rate = this.eventRates.computeIfAbsent(shardId, id -> new EventRate());
+		}
+		rate.record();
+		if (event instanceof GatewayPingEvent pingEvent) {
+			this.metrics.recordPing(shardId, pingEvent.getNewPing());
+		}
+
+		if (event instanceof GenericMessageEvent && this.messageCache.isEnabled()) {
+			this.updateMessageCache(event);
+		}
+
 		if (event instanceof GenericCommandInteractionEvent commandEvent) {
-			List<LocatedFunction> commands = this.commandMap.get(commandEvent.getName());
-			int parameterSize = commandEvent.getOptions().size();
-			if (commands == null || commands.size() < parameterSize) {
+			CommandNode node = this.commands.get(commandEvent);
+			if (node == null) {
 				return;
 			}
-			LocatedFunction locatedFunction = commands.get(parameterSize);
+			LocatedFunction locatedFunction = node.getFunction(commandEvent);
 			if (locatedFunction == null) {
-				commandEvent.reply("Invalid number of parameters").complete();
+				// Never block the gateway thread on a request
+				commandEvent.reply("Invalid number of parameters").queue();
 				return;
 			}
-			// Creates branch interpreter already
-			Interpreter branch = locatedFunction.interpreter();
-			branch.getThreadHandler().runAsync(() -> {
-				return locatedFunction.function().invoke(branch, DiscordUtils.getParameters(branch, commandEvent));
-			});
+			if (!this.handlers.execute(this.createTask(locatedFunction, branch -> node.getArguments(branch, commandEvent)))) {
+				this.metrics.recordDiscarded(event.getClass());
+			}
 			return;
 		}
 
-		String eventName = event.getClass().getSimpleName();
-		List<LocatedFunction> events = this.eventMap.get(eventName);
-		if (events == null) {
+		if (event instanceof MessageReceivedEvent receivedEvent && !this.textCommands.isEmpty()) {
+			this.dispatchTextCommand(receivedEvent);
+		}
+
+		if (listeners.isEmpty()) {
 			return;
 		}
+		// Filters run here on the gateway thread so events no handler wants never reach the interpreter
+		DiscordEvent discordEvent = null;
+		for (EventSubscription subscription : listeners.subscriptions()) {
+			if (!subscription.matches(event)) {
+				this.metrics.recordFiltered();
+				continue;
+			}
+			EventCoalescer coalescer = subscription.getCoalescer();
+			if (coalescer != null) {
+				coalescer.offer(this.coalesceScheduler, event, coalesced -> this.dispatchCoalesced(subscription, coalescer, coalesced));
+				continue;
+			}
+			if (discordEvent == null) {
+				discordEvent = new DiscordEvent(event);
+			}
+			DiscordEvent finalEvent = discordEvent;
+			Runnable task = this.createTask(subscription.getFunction(), branch -> List.of(branch.convertValue(finalEvent)));
+			if (!subscription.execute(this.handlers, event, task)) {
+				this.metrics.recordDiscarded(event.getClass());
+			}
+		}
+	}
 
-		events.forEach(locatedFunction -> {
-			Interpreter branch = locatedFunction.interpreter();
-			branch.getThreadHandler().runAsync(() -> {
-				return locatedFunction.function().invoke(branch, List.of(branch.convertValue(event)));
-			});
-		});
+	private void dispatchCoalesced(EventSubscription subscription, EventCoalescer coalescer, EventCoalescer.Coalesced coalesced) {
+		this.metrics.recordCoalesced(coalesced.received() - 1);
+		Runnable task;
+		if (coalescer.isBatching()) {
+			List<DiscordEvent> events = coalesced.events().stream().map(DiscordEvent::new).toList();
+			task = this.createTask(subscription.getFunction(), branch -> List.of(branch.convertValue(events)));
+		} else {
+			DiscordEvent discordEvent = new DiscordEvent(coalesced.latest());
+			task = this.createTask(subscription.getFunction(), branch -> List.of(branch.convertValue(discordEvent)));
+		}
+		GenericEvent latest = coalesced.latest();
+		if (!subscription.execute(this.handlers, latest, task)) {
+			this.metrics.recordDiscarded(latest.getClass());
+		}
+	}
+
+	// Only the matched command's handler is queued, other messages never reach the interpreter
+	private void dispatchTextCommand(MessageReceivedEvent event) {
+		if (event.getAuthor().isBot()) {
+			return;
+		}
+		TextCommandTrie.Match match = this.textCommands.match(event.getMessage().getContentRaw());
+		if (match == null) {
+			return;
+		}
+		DiscordEvent discordEvent = new DiscordEvent(event);
+		Runnable task = this.createTask(match.function(), branch -> List.of(
+			branch.convertValue(discordEvent),
+			branch.convertValue(match.arguments())
+		));
+		if (!this.handlers.execute(task)) {
+			this.metrics.recordDiscarded(event.getClass());
+		}
+	}
+
+	private void updateMessageCache(GenericEvent event) {
+		if (event instanceof MessageReceivedEvent receivedEvent) {
+			this.messageCache.put(receivedEvent.getMessage());
+		} else if (event instanceof MessageUpdateEvent updateEvent) {
+			this.messageCache.put(updateEvent.getMessage());
+		} else if (event instanceof MessageDeleteEvent deleteEvent) {
+			this.messageCache.remove(deleteEvent.getMessageIdLong());
+		}
+		// Reaction events keep the entry, reaction handlers resolve their message from it, scripts
+		// can't read a message's reactions so the cached reaction list going stale is never seen
+	}
+
+	private Runnable createTask(LocatedFunction locatedFunction, Function<Interpreter, List<ClassInstance>> arguments) {
+		long queued = System.nanoTime();
+		return () -> {
+			// Sequenced lanes keep polling their own queue, so tasks check this rather than relying on the pool
+			if (this.stopped) {
+				return;
+			}
+			long started = System.nanoTime();
+			boolean failed = false;
+			// The branch runs on the handler worker itself, so the pool size is what bounds the handlers,
+			// failures still go to the interpreter so scripts get the same error reporting as runAsync
+			try {
+				locatedFunction.invoke(arguments);
+			} catch (Throwable throwable) {
+				failed = true;
+				locatedFunction.interpreter().getThreadHandler().handleError(throwable);
+			}
+			this.metrics.recordHandler(started - queued, System.nanoTime() - started, failed);
+		};
 	}
 }
@@ -0,0 +1,180 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.channel.GenericChannelEvent;
+import net.dv8tion.jda.api.events.guild.GenericGuildEvent;
+import net.dv8tion.jda.api.events.guild.GuildBanEvent;
+import net.dv8tion.jda.api.events.guild.member.GenericGuildMemberEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.message.MessageUpdateEvent;
+import net.dv8tion.jda.api.events.message.react.GenericMessageReactionEvent;
+import net.dv8tion.jda.api.interactions.Interaction;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+
+import java.util.function.Supplier;
+
+// One of these is shared by every listener of an event, derived values are resolved at most once
+public class DiscordEvent {
+	private final GenericEvent event;
+	private final Lazy<Message> message;
+	private final Lazy<User> user;
+	private final Lazy<MessageChannel> channel;
+	private final Lazy<Guild> server;
+
+	public DiscordEvent(GenericEvent event) {
+		this.event = event;
+		this.message = new Lazy<>(this::resolveMessage);
+		this.user = new Lazy<>(this::resolveUser);
+		this.channel = new Lazy<>(this::resolveChannel);
+		this.server = new Lazy<>(this::resolveServer);
+	}
+
+	public GenericEvent getEvent() {
+		return this.event;
+	}
+
+	public String getEventName() {
+		return this.event.getClass().getSimpleName();
+	}
+
+	public Message getMessage() {
+		return this.message.get();
+	}
+
+	public User getUser() {
+		return this.user.get();
+	}
+
+	public MessageChannel getChannel() {
+		return this.channel.get();
+	}
+
+	public Guild getServer() {
+		return this.server.get();
+	}
+
+	public Member getMember() {
+		if (this.event instanceof MessageReceivedEvent receivedEvent) {
+			return receivedEvent.getMember();
+		}
+		if (this.event instanceof Interaction interactionEvent) {
+			return interactionEvent.getMember();
+		}
+		if (this.event instanceof GenericGuildMemberEvent memberEvent) {
+			return memberEvent.getMember();
+		}
+		return null;
+	}
+
+	public boolean hasPermissions(long required) {
+		Member member = this.getMember();
+		if (member == null) {
+			return false;
+		}
+		GuildChannel channel = null;
+		if (this.event instanceof MessageReceivedEvent || this.event instanceof Interaction) {
+			channel = this.getChannel() instanceof GuildChannel guildChannel ? guildChannel : null;
+		}
+		return Permissions.has(member, channel, required);
+	}
+
+	public IReplyCallback getReplyCallback() {
+		if (this.event instanceof IReplyCallback iReplyCallback) {
+			return iReplyCallback;
+		}
+		throw this.invalidEvent("cannot reply");
+	}
+
+	private RuntimeError invalidEvent(String details) {
+		return new RuntimeError("'%s' %s".formatted(this.getEventName(), details));
+	}
+
+	private boolean hasMessage() {
+		return this.event instanceof MessageReceivedEvent
+			|| this.event instanceof MessageUpdateEvent
+			|| this.event instanceof GenericMessageReactionEvent;
+	}
+
+	private Message getMessage(String error) {
+		if (!this.hasMessage()) {
+			throw this.invalidEvent(error);
+		}
+		return this.message.get();
+	}
+
+	private Message resolveMessage() {
+		if (this.event instanceof MessageReceivedEvent receivedEvent) {
+			return receivedEvent.getMessage();
+		}
+		if (this.event instanceof MessageUpdateEvent updateEvent) {
+			return updateEvent.getMessage();
+		}
+		if (this.event instanceof GenericMessageReactionEvent reactionEvent) {
+			DiscordBot bot = DiscordBot.get(reactionEvent.getJDA());
+			if (bot == null) {
+				return reactionEvent.retrieveMessage().complete();
+			}
+			return bot.getMessageCache().retrieve(reactionEvent.getChannel(), reactionEvent.getMessageIdLong());
+		}
+		throw this.invalidEvent("has no message");
+	}
+
+	private User resolveUser() {
+		if (this.event instanceof GuildBanEvent banEvent) {
+			return banEvent.getUser();
+		}
+		if (this.event instanceof Interaction interactionEvent) {
+			return interactionEvent.getUser();
+		}
+		return this.getMessage("has no user").getAuthor();
+	}
+
+	private MessageChannel resolveChannel() {
+		if (this.event instanceof GenericChannelEvent channelEvent && channelEvent.getChannel() instanceof MessageChannel messageChannel) {
+			return messageChannel;
+		}
+		if (this.event instanceof Interaction interactionEvent) {
+			return interactionEvent.getMessageChannel();
+		}
+		return this.getMessage("has no channel").getChannel();
+	}
+
+	private Guild resolveServer() {
+		if (this.event instanceof GenericGuildEvent guildEvent) {
+			return guildEvent.getGuild();
+		}
+		if (this.event instanceof Interaction interactionEvent) {
+			return interactionEvent.getGuild();
+		}
+		return this.getMessage("has no server").getGuild();
+	}
+
+	private static class Lazy<T> {
+		private final Supplier<T> supplier;
+		private volatile boolean resolved;
+		private T value;
+
+		private Lazy(Supplier<T> supplier) {
+			this.supplier = supplier;
+		}
+
+		private T get() {
+			if (!this.resolved) {
+				synchronized (this) {
+					if (!this.resolved) {
+						this.value = this.supplier.get();
+						this.resolved = true;
+					}
+				}
+			}
+			return this.value;
+		}
+	}
+}
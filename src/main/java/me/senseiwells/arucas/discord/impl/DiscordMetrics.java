@@ -0,0 +1,318 @@
+package me.senseiwells.arucas.discord.impl;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Recording only touches adders and atomic arrays, everything else is worked out when the metrics are read
+public class DiscordMetrics implements DiscordMetricsMXBean {
+	private static final AtomicInteger COUNT = new AtomicInteger();
+	private static final int PING_HISTORY = 60;
+
+	private final Map<Class<?>, LongAdder> eventCounts;
+	private final LatencyHistogram handlerLatency;
+	private final LatencyHistogram handlerWait;
+	private final LatencyHistogram handlerTotal;
+	private final LongAdder handlerErrors;
+	private final LongAdder handlersFiltered;
+	private final Map<Class<?>, LongAdder> handlersDiscarded;
+	private final LongAdder eventsCoalesced;
+	private final LatencyHistogram restLatency;
+	private final LongAdder restErrors;
+	private final LongAdder restErrorsDiscarded;
+	private final Map<String, LongSupplier> pending;
+	private final Map<Integer, PingHistory> pings;
+	private volatile ObjectName name;
+
+	public DiscordMetrics() {
+		this.eventCounts = new ConcurrentHashMap<>();
+		this.handlerLatency = new LatencyHistogram();
+		this.handlerWait = new LatencyHistogram();
+		this.handlerTotal = new LatencyHistogram();
+		this.handlerErrors = new LongAdder();
+		this.handlersFiltered = new LongAdder();
+		this.handlersDiscarded = new ConcurrentHashMap<>();
+		this.eventsCoalesced = new LongAdder();
+		this.restLatency = new LatencyHistogram();
+		this.restErrors = new LongAdder();
+		this.restErrorsDiscarded = new LongAdder();
+		this.pending = new ConcurrentHashMap<>();
+		this.pings = new ConcurrentHashMap<>();
+	}
+
+	// The registry keeps each type's counter with its listeners, so recording an event is one increment
+	public LongAdder getEventCounter(Class<?> eventClass) {
+		return this.eventCounts.computeIfAbsent(eventClass, c -> new LongAdder());
+	}
+
+	public void recordHandler(long waitNanos, long runNanos, boolean failed) {
+		this.handlerWait.record(waitNanos);
+		this.handlerLatency.record(runNanos);
+		this.handlerTotal.record(waitNanos + runNanos);
+		if (failed) {
+			this.handlerErrors.increment();
+		}
+	}
+
+	public void recordFiltered() {
+		this.handlersFiltered.increment();
+	}
+
+	// Handlers the executor dropped or rejected, by the type that would have triggered them
+	public void recordDiscarded(Class<?> type) {
+		this.handlersDiscarded.computeIfAbsent(type, c -> new LongAdder()).increment();
+	}
+
+	public void recordCoalesced(long count) {
+		this.eventsCoalesced.add(count);
+	}
+
+	public void recordRest(long nanos, boolean failed) {
+		this.restLatency.record(nanos);
+		if (failed) {
+			this.restErrors.increment();
+		}
+	}
+
+	// Failures whose error handler was dropped or rejected, these aren't events so they are kept apart
+	public void recordRestErrorDiscarded() {
+		this.restErrorsDiscarded.increment();
+	}
+
+	// Each shard has its own gateway connection so their pings are kept apart
+	public void recordPing(int shardId, long ping) {
+		PingHistory history = this.pings.get(shardId);
+		if (history == null) {
+			history = this.pings.computeIfAbsent(shardId, id -> new PingHistory());
+		}
+		history.record(ping);
+	}
+
+	public void addPending(String name, LongSupplier supplier) {
+		this.pending.put(name, supplier);
+	}
+
+	public void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName("me.senseiwells.arucas.discord:type=DiscordMetrics,bot=" + COUNT.incrementAndGet());
+			server.registerMBean(this, name);
+			this.name = name;
+		} catch (JMException | SecurityException ignored) {
+			// The metrics can still be read by scripts
+		}
+	}
+
+	public void unregister() {
+		ObjectName name = this.name;
+		if (name == null) {
+			return;
+		}
+		this.name = null;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+		} catch (JMException | SecurityException ignored) {
+			// Already unregistered
+		}
+	}
+
+	@Override
+	public long getEventsTotal() {
+		long total = 0;
+		for (LongAdder count : this.eventCounts.values()) {
+			total += count.sum();
+		}
+		return total;
+	}
+
+	@Override
+	public Map<String, Long> getEventCounts() {
+		Map<String, Long> counts = new TreeMap<>();
+		this.eventCounts.forEach((type, count) -> counts.put(type.getSimpleName(), count.sum()));
+		return counts;
+	}
+
+	@Override
+	public long getHandlersCompleted() {
+		return this.handlerLatency.getCount();
+	}
+
+	@Override
+	public long getHandlerErrors() {
+		return this.handlerErrors.sum();
+	}
+
+	@Override
+	public long getHandlersFiltered() {
+		return this.handlersFiltered.sum();
+	}
+
+	@Override
+	public Map<String, Long> getHandlersDiscarded() {
+		Map<String, Long> counts = new TreeMap<>();
+		this.handlersDiscarded.forEach((type, count) -> counts.merge(type.getSimpleName(), count.sum(), Long::sum));
+		return counts;
+	}
+
+	@Override
+	public long getEventsCoalesced() {
+		return this.eventsCoalesced.sum();
+	}
+
+	@Override
+	public double getHandlerLatencyMean() {
+		return this.handlerLatency.getMeanMillis();
+	}
+
+	@Override
+	public double getHandlerLatencyP99() {
+		return this.handlerLatency.getPercentileMillis(99);
+	}
+
+	@Override
+	public double getHandlerWaitP99() {
+		return this.handlerWait.getPercentileMillis(99);
+	}
+
+	@Override
+	public double getHandlerTotalP99() {
+		return this.handlerTotal.getPercentileMillis(99);
+	}
+
+	@Override
+	public long getRestRequests() {
+		return this.restLatency.getCount();
+	}
+
+	@Override
+	public long getRestErrors() {
+		return this.restErrors.sum();
+	}
+
+	@Override
+	public long getRestErrorsDiscarded() {
+		return this.restErrorsDiscarded.sum();
+	}
+
+	@Override
+	public double getRestLatencyMean() {
+		return this.restLatency.getMeanMillis();
+	}
+
+	@Override
+	public double getRestLatencyP99() {
+		return this.restLatency.getPercentileMillis(99);
+	}
+
+	// The average of each shard's latest ping, like ShardManager's average gateway ping
+	@Override
+	public long getGatewayPing() {
+		long total = 0;
+		int shards = 0;
+		for (PingHistory history : this.pings.values()) {
+			long latest = history.getLatest();
+			if (latest >= 0) {
+				total += latest;
+				shards++;
+			}
+		}
+		return shards == 0 ? -1 : total / shards;
+	}
+
+	@Override
+	public Map<Integer, Long> getGatewayPings() {
+		Map<Integer, Long> pings = new TreeMap<>();
+		this.pings.forEach((shardId, history) -> pings.put(shardId, history.getLatest()));
+		return pings;
+	}
+
+	@Override
+	public Map<String, Long> getPending() {
+		Map<String, Long> pending = new TreeMap<>();
+		this.pending.forEach((name, supplier) -> pending.put(name, supplier.getAsLong()));
+		return pending;
+	}
+
+	public Map<String, Object> getHandlerStats() {
+		return Map.of(
+			"completed", this.getHandlersCompleted(),
+			"errors", this.getHandlerErrors(),
+			"filtered", this.getHandlersFiltered(),
+			"discarded", this.getHandlersDiscarded(),
+			"coalesced", this.getEventsCoalesced(),
+			"latency", this.handlerLatency.getStats(),
+			"wait", this.handlerWait.getStats(),
+			"total", this.handlerTotal.getStats()
+		);
+	}
+
+	public Map<String, Object> getRestStats() {
+		return Map.of(
+			"requests", this.getRestRequests(),
+			"errors", this.getRestErrors(),
+			"errorsDiscarded", this.getRestErrorsDiscarded(),
+			"latency", this.restLatency.getStats()
+		);
+	}
+
+	public Map<Integer, List<Map<String, Object>>> getPingHistory() {
+		Map<Integer, List<Map<String, Object>>> histories = new TreeMap<>();
+		this.pings.forEach((shardId, history) -> histories.put(shardId, history.toList()));
+		return histories;
+	}
+
+	public List<Map<String, Object>> getPingHistory(int shardId) {
+		PingHistory history = this.pings.get(shardId);
+		return history == null ? List.of() : history.toList();
+	}
+
+	public Map<String, Object> getStats() {
+		return Map.of(
+			"events", Map.of("total", this.getEventsTotal(), "types", this.getEventCounts()),
+			"handlers", this.getHandlerStats(),
+			"rest", this.getRestStats(),
+			"pending", this.getPending(),
+			"gateway", Map.of("ping", this.getGatewayPing(), "shards", this.getGatewayPings(), "history", this.getPingHistory())
+		);
+	}
+
+	private static class PingHistory {
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLongArray times = new AtomicLongArray(PING_HISTORY);
+		private final AtomicLongArray pings = new AtomicLongArray(PING_HISTORY);
+
+		private void record(long ping) {
+			int index = (int) (this.count.getAndIncrement() % PING_HISTORY);
+			this.times.set(index, System.currentTimeMillis());
+			this.pings.set(index, ping);
+		}
+
+		private long getLatest() {
+			long count = this.count.get();
+			return count == 0 ? -1 : this.pings.get((int) ((count - 1) % PING_HISTORY));
+		}
+
+		// Oldest first, each entry has the 'time' it was recorded and the 'ping'
+		private List<Map<String, Object>> toList() {
+			long count = this.count.get();
+			long first = Math.max(0, count - PING_HISTORY);
+			List<Map<String, Object>> history = new ArrayList<>();
+			for (long i = first; i < count; i++) {
+				int index = (int) (i % PING_HISTORY);
+				history.add(Map.of("time", this.times.get(index), "ping", this.pings.get(index)));
+			}
+			return history;
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package me.senseiwells.arucas.discord.impl;
+
+import java.util.Map;
+
+// Latencies are in milliseconds
+public interface DiscordMetricsMXBean {
+	long getEventsTotal();
+
+	Map<String, Long> getEventCounts();
+
+	long getHandlersCompleted();
+
+	long getHandlerErrors();
+
+	long getHandlersFiltered();
+
+	Map<String, Long> getHandlersDiscarded();
+
+	long getEventsCoalesced();
+
+	double getHandlerLatencyMean();
+
+	double getHandlerLatencyP99();
+
+	double getHandlerWaitP99();
+
+	double getHandlerTotalP99();
+
+	long getRestRequests();
+
+	long getRestErrors();
+
+	long getRestErrorsDiscarded();
+
+	double getRestLatencyMean();
+
+	double getRestLatencyP99();
+
+	long getGatewayPing();
+
+	Map<Integer, Long> getGatewayPings();
+
+	Map<String, Long> getPending();
+}
@@ -0,0 +1,209 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.classes.ClassInstance;
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import me.senseiwells.arucas.utils.impl.ArucasMap;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Text is split into literals and {placeholders} once, embeds without placeholders are built once
+public class EmbedTemplate {
+	private final Text title;
+	private final Text description;
+	private final Integer colour;
+	private final List<Field> fields;
+	private final Text image;
+	private final List<String> placeholders;
+	private final MapSchema placeholderSchema;
+	private final List<MapSchema.Field<ClassInstance>> placeholderFields;
+	private final MessageEmbed constant;
+
+	public EmbedTemplate(String title, String description, Integer colour, List<FieldData> fields, String image) {
+		if (fields.size() > 25) {
+			throw new RuntimeError("Embed cannot have more than 25 fields");
+		}
+		this.title = Text.compile("title", title, MessageEmbed.TITLE_MAX_LENGTH);
+		this.description = Text.compile("description", description, MessageEmbed.DESCRIPTION_MAX_LENGTH);
+		this.colour = colour;
+		this.fields = new ArrayList<>();
+		for (FieldData data : fields) {
+			this.fields.add(new Field(
+				Text.compile("field name", data.name(), MessageEmbed.TITLE_MAX_LENGTH),
+				Text.compile("field value", data.value(), MessageEmbed.VALUE_MAX_LENGTH),
+				data.inline()
+			));
+		}
+		this.image = Text.compile("image", image, MessageEmbed.URL_MAX_LENGTH);
+
+		Set<String> placeholders = new LinkedHashSet<>();
+		this.forEachText(text -> placeholders.addAll(List.of(text.placeholders)));
+		this.placeholders = List.copyOf(placeholders);
+		this.placeholderSchema = new MapSchema("Embed template values");
+		this.placeholderFields = new ArrayList<>();
+		for (String placeholder : this.placeholders) {
+			this.placeholderFields.add(this.placeholderSchema.any(placeholder));
+		}
+		// This also checks the total length of the embed when it can be known up front
+		this.constant = this.placeholders.isEmpty() ? RuntimeError.wrap(() -> this.build(Map.of())) : null;
+	}
+
+	public List<String> getPlaceholders() {
+		return this.placeholders;
+	}
+
+	public MessageEmbed render(Interpreter interpreter, ArucasMap values) {
+		if (this.constant != null) {
+			return this.constant;
+		}
+		if (values == null) {
+			throw new RuntimeError("Embed template needs values for %s".formatted(this.placeholders));
+		}
+		MapSchema.Decoded decoded = this.placeholderSchema.decode(interpreter, values);
+		Map<String, String> rendered = new HashMap<>();
+		for (MapSchema.Field<ClassInstance> field : this.placeholderFields) {
+			ClassInstance value = decoded.get(field);
+			if (value != null) {
+				rendered.put(field.getKey(), value.toString(interpreter));
+			}
+		}
+		return this.render(rendered);
+	}
+
+	public MessageEmbed render(Map<String, String> values) {
+		if (this.constant != null) {
+			return this.constant;
+		}
+		return RuntimeError.wrap(() -> this.build(values));
+	}
+
+	private MessageEmbed build(Map<String, String> values) {
+		EmbedBuilder builder = new EmbedBuilder();
+		if (this.title != null) {
+			builder.setTitle(this.title.render(values));
+		}
+		if (this.description != null) {
+			builder.setDescription(this.description.render(values));
+		}
+		if (this.colour != null) {
+			builder.setColor(this.colour);
+		}
+		for (Field field : this.fields) {
+			builder.getFields().add(field.render(values));
+		}
+		if (this.image != null) {
+			builder.setImage(this.image.render(values));
+		}
+		return builder.build();
+	}
+
+	private void forEachText(Consumer<Text> consumer) {
+		for (Text text : new Text[] { this.title, this.description, this.image }) {
+			if (text != null) {
+				consumer.accept(text);
+			}
+		}
+		for (Field field : this.fields) {
+			consumer.accept(field.name);
+			consumer.accept(field.value);
+		}
+	}
+
+	public record FieldData(String name, String value, boolean inline) { }
+
+	private static final class Field {
+		private final Text name;
+		private final Text value;
+		private final boolean inline;
+		private final MessageEmbed.Field constant;
+
+		private Field(Text name, Text value, boolean inline) {
+			this.name = name;
+			this.value = value;
+			this.inline = inline;
+			boolean isConstant = name.placeholders.length == 0 && value.placeholders.length == 0;
+			this.constant = isConstant ? RuntimeError.wrap(() -> new MessageEmbed.Field(name.literals[0], value.literals[0], inline)) : null;
+		}
+
+		private MessageEmbed.Field render(Map<String, String> values) {
+			if (this.constant != null) {
+				return this.constant;
+			}
+			return new MessageEmbed.Field(this.name.render(values), this.value.render(values), this.inline);
+		}
+	}
+
+	static final class Text {
+		final String[] literals;
+		final String[] placeholders;
+
+		private Text(String[] literals, String[] placeholders) {
+			this.literals = literals;
+			this.placeholders = placeholders;
+		}
+
+		static Text compile(String part, String text, int maxLength) {
+			if (text == null) {
+				return null;
+			}
+			List<String> literals = new ArrayList<>();
+			List<String> placeholders = new ArrayList<>();
+			StringBuilder current = new StringBuilder();
+			int staticLength = 0;
+			int i = 0;
+			while (i < text.length()) {
+				char c = text.charAt(i);
+				int end = c == '{' ? text.indexOf('}', i + 1) : -1;
+				if (end > i + 1 && isPlaceholder(text, i + 1, end)) {
+					staticLength += current.length();
+					literals.add(current.toString());
+					current.setLength(0);
+					placeholders.add(text.substring(i + 1, end));
+					i = end + 1;
+					continue;
+				}
+				current.append(c);
+				i++;
+			}
+			staticLength += current.length();
+			literals.add(current.toString());
+			if (staticLength > maxLength) {
+				throw new RuntimeError("Embed %s is longer than %d characters".formatted(part, maxLength));
+			}
+			return new Text(literals.toArray(String[]::new), placeholders.toArray(String[]::new));
+		}
+
+		private static boolean isPlaceholder(String text, int start, int end) {
+			for (int i = start; i < end; i++) {
+				char c = text.charAt(i);
+				if (!Character.isLetterOrDigit(c) && c != '_') {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		String render(Map<String, String> values) {
+			if (this.placeholders.length == 0) {
+				return this.literals[0];
+			}
+			StringBuilder builder = new StringBuilder(this.literals[0]);
+			for (int i = 0; i < this.placeholders.length; i++) {
+				String value = values.get(this.placeholders[i]);
+				if (value == null) {
+					throw new RuntimeError("No value was given for placeholder '%s'".formatted(this.placeholders[i]));
+				}
+				builder.append(value).append(this.literals[i + 1]);
+			}
+			return builder.toString();
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import net.dv8tion.jda.api.events.GenericEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// The first event for a key opens a window, when it closes the latest event, or every event, is handed on once
+public class EventCoalescer {
+	public static final long MAX_WINDOW = TimeUnit.MINUTES.toMillis(1);
+	// A full batch is handed on straight away rather than growing until the window closes
+	public static final int MAX_BATCH = 100;
+
+	private final EventKey key;
+	private final long window;
+	private final boolean batch;
+	private final Map<Long, Window> windows;
+
+	public EventCoalescer(EventKey key, long window, boolean batch) {
+		if (window <= 0 || window > MAX_WINDOW) {
+			throw new RuntimeError("Coalescing window must be between 1 and %d milliseconds".formatted(MAX_WINDOW));
+		}
+		this.key = key;
+		this.window = window;
+		this.batch = batch;
+		this.windows = new ConcurrentHashMap<>();
+	}
+
+	// Each bot closes its windows on its own scheduler so a saturated bot only delays itself
+	public static ScheduledExecutorService createScheduler() {
+		AtomicInteger count = new AtomicInteger();
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "Arucas Discord Coalescer " + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.setRemoveOnCancelPolicy(true);
+		return scheduler;
+	}
+
+	public boolean isBatching() {
+		return this.batch;
+	}
+
+	public void offer(ScheduledExecutorService scheduler, GenericEvent event, Consumer<Coalesced> flush) {
+		long key = this.key.getKey(event);
+		Window[] full = new Window[1];
+		this.windows.compute(key, (k, window) -> {
+			if (window == null) {
+				window = new Window();
+				Window opened = window;
+				try {
+					window.closing = scheduler.schedule(() -> this.flush(k, opened, flush), this.window, TimeUnit.MILLISECONDS);
+				} catch (RejectedExecutionException e) {
+					// The bot has shut down
+					return null;
+				}
+			}
+			window.add(event, this.batch);
+			if (window.events.size() >= MAX_BATCH) {
+				window.closing.cancel(false);
+				full[0] = window;
+				return null;
+			}
+			return window;
+		});
+		if (full[0] != null) {
+			this.accept(full[0], flush);
+		}
+	}
+
+	private void flush(long key, Window window, Consumer<Coalesced> flush) {
+		// Events arriving after the removal open a new window, a window flushed early is already gone
+		if (this.windows.remove(key, window)) {
+			this.accept(window, flush);
+		}
+	}
+
+	private void accept(Window window, Consumer<Coalesced> flush) {
+		try {
+			flush.accept(new Coalesced(window.events, window.received));
+		} catch (RuntimeException e) {
+			// A failing flush must not kill the scheduler thread for every other window
+			Thread thread = Thread.currentThread();
+			thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+		}
+	}
+
+	public record Coalesced(List<GenericEvent> events, int received) {
+		public GenericEvent latest() {
+			return this.events.get(this.events.size() - 1);
+		}
+	}
+
+	private static class Window {
+		private final List<GenericEvent> events = new ArrayList<>(1);
+		private ScheduledFuture<?> closing;
+		private int received;
+
+		private void add(GenericEvent event, boolean batch) {
+			if (!batch) {
+				this.events.clear();
+			}
+			this.events.add(event);
+			this.received++;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package me.senseiwells.arucas.discord.impl;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.message.MessageUpdateEvent;
+import net.dv8tion.jda.api.events.message.react.GenericMessageReactionEvent;
+import net.dv8tion.jda.api.interactions.Interaction;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.regex.Pattern;
+
+// Checked on the gateway thread before a handler is queued, events that don't have
+// the value a condition checks, such as content for a reaction, never match
+public class EventFilter {
+	private final long[] servers;
+	private final long[] channels;
+	private final Boolean bot;
+	private final String prefix;
+	private final Pattern pattern;
+	private final Boolean attachments;
+
+	public EventFilter(
+		@Nullable Collection<Long> servers,
+		@Nullable Collection<Long> channels,
+		@Nullable Boolean bot,
+		@Nullable String prefix,
+		@Nullable Pattern pattern,
+		@Nullable Boolean attachments
+	) {
+		this.servers = toSortedArray(servers);
+		this.channels = toSortedArray(channels);
+		this.bot = bot;
+		this.prefix = prefix;
+		this.pattern = pattern;
+		this.attachments = attachments;
+	}
+
+	public boolean test(GenericEvent event) {
+		if (this.servers != null && Arrays.binarySearch(this.servers, EventKey.SERVER.getKey(event)) < 0) {
+			return false;
+		}
+		if (this.channels != null && Arrays.binarySearch(this.channels, EventKey.CHANNEL.getKey(event)) < 0) {
+			return false;
+		}
+		if (this.bot != null) {
+			User user = getUser(event);
+			if (user == null || user.isBot() != this.bot) {
+				return false;
+			}
+		}
+		if (this.prefix == null && this.pattern == null && this.attachments == null) {
+			return true;
+		}
+		Message message = getMessage(event);
+		if (message == null) {
+			return false;
+		}
+		if (this.attachments != null && message.getAttachments().isEmpty() == this.attachments) {
+			return false;
+		}
+		String content = message.getContentRaw();
+		if (this.prefix != null && !content.startsWith(this.prefix)) {
+			return false;
+		}
+		return this.pattern == null || this.pattern.matcher(content).find();
+	}
+
+	private static long[] toSortedArray(Collection<Long> ids) {
+		if (ids == null) {
+			return null;
+		}
+		long[] array = ids.stream().mapToLong(Long::longValue).toArray();
+		Arrays.sort(array);
+		return array;
+	}
+
+	private static Message getMessage(GenericEvent event) {
+		if (event instanceof MessageReceivedEvent receivedEvent) {
+			return receivedEvent.getMessage();
+		}
+		if (event instanceof MessageUpdateEvent updateEvent) {
+			return updateEvent.getMessage();
+		}
+		return null;
+	}
+
+	private static User getUser(GenericEvent event) {
+		if (event instanceof MessageReceivedEvent receivedEvent) {
+			return receivedEvent.getAuthor();
+		}
+		if (event instanceof MessageUpdateEvent updateEvent) {
+			return updateEvent.getAuthor();
+		}
+		if (event instanceof GenericMessageReactionEvent reactionEvent) {
+			// Only known when the user is cached
+			return reactionEvent.getUser();
+		}
+		if (event instanceof Interaction interaction) {
+			return interaction.getUser();
+		}
+		return null;
+	}
+}
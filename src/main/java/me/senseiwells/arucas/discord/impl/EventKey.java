@@ -0,0 +1,103 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.channel.GenericChannelEvent;
+import net.dv8tion.jda.api.events.guild.GenericGuildEvent;
+import net.dv8tion.jda.api.events.guild.GuildBanEvent;
+import net.dv8tion.jda.api.events.guild.member.GenericGuildMemberEvent;
+import net.dv8tion.jda.api.events.message.GenericMessageEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.message.MessageUpdateEvent;
+import net.dv8tion.jda.api.events.message.react.GenericMessageReactionEvent;
+import net.dv8tion.jda.api.events.user.GenericUserEvent;
+import net.dv8tion.jda.api.interactions.Interaction;
+
+public enum EventKey {
+	CHANNEL,
+	SERVER,
+	USER,
+	MESSAGE;
+
+	// Events without the entity all share this key
+	public static final long NO_KEY = 0;
+
+	public long getKey(GenericEvent event) {
+		return switch (this) {
+			case CHANNEL -> getChannelId(event);
+			case SERVER -> getServerId(event);
+			case USER -> getUserId(event);
+			case MESSAGE -> getMessageId(event);
+		};
+	}
+
+	public static EventKey fromName(String name) {
+		return switch (name.toLowerCase()) {
+			case "channel" -> CHANNEL;
+			case "server", "guild" -> SERVER;
+			case "user" -> USER;
+			case "message" -> MESSAGE;
+			default -> throw new RuntimeError("'%s' is an invalid event key, expected 'channel', 'server', 'user' or 'message'".formatted(name));
+		};
+	}
+
+	private static long getChannelId(GenericEvent event) {
+		if (event instanceof GenericMessageEvent messageEvent) {
+			return messageEvent.getChannel().getIdLong();
+		}
+		if (event instanceof GenericChannelEvent channelEvent) {
+			return channelEvent.getChannel().getIdLong();
+		}
+		if (event instanceof Interaction interaction) {
+			return interaction.getMessageChannel().getIdLong();
+		}
+		return NO_KEY;
+	}
+
+	private static long getServerId(GenericEvent event) {
+		if (event instanceof GenericGuildEvent guildEvent) {
+			return guildEvent.getGuild().getIdLong();
+		}
+		if (event instanceof GenericMessageEvent messageEvent) {
+			return messageEvent.isFromGuild() ? messageEvent.getGuild().getIdLong() : NO_KEY;
+		}
+		if (event instanceof Interaction interaction) {
+			Guild guild = interaction.getGuild();
+			return guild == null ? NO_KEY : guild.getIdLong();
+		}
+		return NO_KEY;
+	}
+
+	private static long getMessageId(GenericEvent event) {
+		if (event instanceof GenericMessageEvent messageEvent) {
+			return messageEvent.getMessageIdLong();
+		}
+		return NO_KEY;
+	}
+
+	private static long getUserId(GenericEvent event) {
+		if (event instanceof MessageReceivedEvent receivedEvent) {
+			return receivedEvent.getAuthor().getIdLong();
+		}
+		if (event instanceof MessageUpdateEvent updateEvent) {
+			return updateEvent.getAuthor().getIdLong();
+		}
+		if (event instanceof GenericMessageReactionEvent reactionEvent) {
+			return reactionEvent.getUserIdLong();
+		}
+		if (event instanceof GenericGuildMemberEvent memberEvent) {
+			return memberEvent.getUser().getIdLong();
+		}
+		if (event instanceof GuildBanEvent banEvent) {
+			return banEvent.getUser().getIdLong();
+		}
+		if (event instanceof GenericUserEvent userEvent) {
+			return userEvent.getUser().getIdLong();
+		}
+		if (event instanceof Interaction interaction) {
+			return interaction.getUser().getIdLong();
+		}
+		return NO_KEY;
+	}
+}
@@ -0,0 +1,47 @@
+package me.senseiwells.arucas.discord.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts events in one second buckets, the rate is averaged over the last full buckets
+public class EventRate {
+	private static final int WINDOW = 10;
+
+	private final LongAdder total;
+	private final AtomicLongArray counts;
+	private final AtomicLongArray seconds;
+
+	public EventRate() {
+		this.total = new LongAdder();
+		this.counts = new AtomicLongArray(WINDOW);
+		this.seconds = new AtomicLongArray(WINDOW);
+	}
+
+	public void record() {
+		this.total.increment();
+		long second = System.currentTimeMillis() / 1000;
+		int index = (int) (second % WINDOW);
+		long previous = this.seconds.get(index);
+		// Losing a few increments to a racing reset is fine for statistics
+		if (previous != second && this.seconds.compareAndSet(index, previous, second)) {
+			this.counts.set(index, 0);
+		}
+		this.counts.incrementAndGet(index);
+	}
+
+	public long getTotal() {
+		return this.total.sum();
+	}
+
+	public double getRate() {
+		long current = System.currentTimeMillis() / 1000;
+		long events = 0;
+		for (int i = 0; i < WINDOW; i++) {
+			long second = this.seconds.get(i);
+			if (second < current && second >= current - (WINDOW - 1)) {
+				events += this.counts.get(i);
+			}
+		}
+		return events / (double) (WINDOW - 1);
+	}
+}
@@ -0,0 +1,98 @@
+package me.senseiwells.arucas.discord.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class EventRegistry {
+	private static final EventSubscription[] NO_LISTENERS = new EventSubscription[0];
+
+	private final Function<Class<?>, LongAdder> counters;
+	// Registering replaces the snapshot so dispatching never needs to lock
+	private volatile Snapshot snapshot;
+
+	public EventRegistry(Function<Class<?>, LongAdder> counters) {
+		this.counters = counters;
+		this.snapshot = new Snapshot(Map.of());
+	}
+
+	public synchronized void register(String eventName, EventSubscription subscription) {
+		Map<String, List<EventSubscription>> listeners = new HashMap<>(this.snapshot.listeners);
+		List<EventSubscription> subscriptions = new ArrayList<>(listeners.getOrDefault(eventName, List.of()));
+		subscriptions.add(subscription);
+		listeners.put(eventName, List.copyOf(subscriptions));
+		this.snapshot = new Snapshot(Map.copyOf(listeners));
+	}
+
+	public Listeners getListeners(Class<?> eventClass) {
+		return this.snapshot.getListeners(eventClass);
+	}
+
+	// Types without listeners are cached too, every event needs its type's counter
+	public record Listeners(EventSubscription[] subscriptions, LongAdder received) {
+		public boolean isEmpty() {
+			return this.subscriptions.length == 0;
+		}
+	}
+
+	private class Snapshot {
+		private final Map<String, List<EventSubscription>> listeners;
+		private final Map<Class<?>, Listeners> resolved;
+
+		private Snapshot(Map<String, List<EventSubscription>> listeners) {
+			this.listeners = listeners;
+			this.resolved = new ConcurrentHashMap<>();
+		}
+
+		private Listeners getListeners(Class<?> eventClass) {
+			Listeners listeners = this.resolved.get(eventClass);
+			if (listeners == null) {
+				// Resolving is deterministic for a snapshot and counters are shared, so racing threads can both store
+				listeners = new Listeners(this.resolve(eventClass), EventRegistry.this.counters.apply(eventClass));
+				this.resolved.put(eventClass, listeners);
+			}
+			return listeners;
+		}
+
+		private EventSubscription[] resolve(Class<?> eventClass) {
+			if (this.listeners.isEmpty()) {
+				return NO_LISTENERS;
+			}
+			List<EventSubscription> subscriptions = new ArrayList<>();
+			for (Class<?> type : getHierarchy(eventClass)) {
+				List<EventSubscription> registered = this.listeners.get(type.getSimpleName());
+				if (registered != null) {
+					subscriptions.addAll(registered);
+				}
+			}
+			return subscriptions.isEmpty() ? NO_LISTENERS : subscriptions.toArray(EventSubscription[]::new);
+		}
+	}
+
+	private static Set<Class<?>> getHierarchy(Class<?> eventClass) {
+		// Most specific first, so exact matches run before their supertypes
+		Set<Class<?>> hierarchy = new LinkedHashSet<>();
+		for (Class<?> type = eventClass; type != null && type != Object.class; type = type.getSuperclass()) {
+			hierarchy.add(type);
+		}
+		List<Class<?>> classes = new ArrayList<>(hierarchy);
+		for (Class<?> type : classes) {
+			addInterfaces(hierarchy, type);
+		}
+		return hierarchy;
+	}
+
+	private static void addInterfaces(Set<Class<?>> hierarchy, Class<?> type) {
+		for (Class<?> anInterface : type.getInterfaces()) {
+			if (hierarchy.add(anInterface)) {
+				addInterfaces(hierarchy, anInterface);
+			}
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.discord.DiscordUtils.LocatedFunction;
+import net.dv8tion.jda.api.events.GenericEvent;
+import org.jetbrains.annotations.Nullable;
+
+public class EventSubscription {
+	private final LocatedFunction function;
+	private final EventKey sequenceKey;
+	private final KeyedSequencer sequencer;
+	private final EventFilter filter;
+	private final EventCoalescer coalescer;
+
+	public EventSubscription(LocatedFunction function, @Nullable EventKey sequenceKey, @Nullable EventFilter filter, @Nullable EventCoalescer coalescer) {
+		this.function = function;
+		this.sequenceKey = sequenceKey;
+		this.sequencer = sequenceKey == null ? null : new KeyedSequencer();
+		this.filter = filter;
+		this.coalescer = coalescer;
+	}
+
+	public EventSubscription(LocatedFunction function) {
+		this(function, null, null, null);
+	}
+
+	public LocatedFunction getFunction() {
+		return this.function;
+	}
+
+	@Nullable
+	public EventKey getSequenceKey() {
+		return this.sequenceKey;
+	}
+
+	@Nullable
+	public EventCoalescer getCoalescer() {
+		return this.coalescer;
+	}
+
+	public boolean matches(GenericEvent event) {
+		return this.filter == null || this.filter.test(event);
+	}
+
+	public boolean execute(HandlerExecutor executor, GenericEvent event, Runnable task) {
+		if (this.sequencer == null) {
+			return executor.execute(task);
+		}
+		return this.sequencer.execute(executor, this.sequenceKey.getKey(event), task);
+	}
+}
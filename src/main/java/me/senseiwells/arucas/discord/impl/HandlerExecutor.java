@@ -0,0 +1,195 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.exceptions.RuntimeError;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class HandlerExecutor {
+	public static final int DEFAULT_WORKERS = Math.max(2, Runtime.getRuntime().availableProcessors());
+	public static final int DEFAULT_QUEUE_DEPTH = 1000;
+
+	private final AtomicLong dropped;
+	private final AtomicLong rejected;
+	private volatile ThreadPoolExecutor executor;
+	private volatile OverflowPolicy policy;
+
+	public HandlerExecutor() {
+		this.dropped = new AtomicLong();
+		this.rejected = new AtomicLong();
+		this.configure(DEFAULT_WORKERS, DEFAULT_QUEUE_DEPTH, OverflowPolicy.BLOCK);
+	}
+
+	public synchronized void configure(int workers, int queueDepth, OverflowPolicy policy) {
+		if (workers < 1 || queueDepth < 1) {
+			throw new RuntimeError("Worker count and queue depth must be at least 1");
+		}
+		ThreadPoolExecutor previous = this.executor;
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+			workers, workers, 60, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<>(queueDepth),
+			new HandlerThreadFactory(),
+			new OverflowHandler()
+		);
+		executor.allowCoreThreadTimeOut(true);
+		this.policy = policy;
+		this.executor = executor;
+		if (previous != null) {
+			// Already queued handlers still run on the old workers
+			previous.shutdown();
+		}
+	}
+
+	public boolean execute(Runnable task) {
+		try {
+			this.executor.execute(task);
+			return true;
+		} catch (RejectedExecutionException e) {
+			return false;
+		}
+	}
+
+	public void shutdown() {
+		this.executor.shutdown();
+	}
+
+	public void shutdownNow() {
+		this.executor.shutdownNow();
+	}
+
+	public OverflowPolicy getPolicy() {
+		return this.policy;
+	}
+
+	public long getDropped() {
+		return this.dropped.get();
+	}
+
+	public long getRejected() {
+		return this.rejected.get();
+	}
+
+	public int getActive() {
+		return this.executor.getActiveCount();
+	}
+
+	public int getQueueDepth() {
+		return this.executor.getQueue().size();
+	}
+
+	public int getQueueCapacity() {
+		BlockingQueue<Runnable> queue = this.executor.getQueue();
+		return queue.size() + queue.remainingCapacity();
+	}
+
+	public void recordDropped(long count) {
+		this.dropped.addAndGet(count);
+	}
+
+	public void recordRejected(long count) {
+		this.rejected.addAndGet(count);
+	}
+
+	public Map<String, Object> getStats() {
+		ThreadPoolExecutor executor = this.executor;
+		return Map.of(
+			"workers", executor.getMaximumPoolSize(),
+			"active", executor.getActiveCount(),
+			"queued", executor.getQueue().size(),
+			"queueCapacity", this.getQueueCapacity(),
+			"completed", executor.getCompletedTaskCount(),
+			"dropped", this.dropped.get(),
+			"rejected", this.rejected.get(),
+			"policy", this.policy.name().toLowerCase()
+		);
+	}
+
+	private static long discard(Runnable task) {
+		return task instanceof Droppable droppable ? droppable.onDropped() : 1;
+	}
+
+	private class OverflowHandler implements RejectedExecutionHandler {
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			HandlerExecutor handler = HandlerExecutor.this;
+			if (executor.isShutdown()) {
+				// The pool was reconfigured while this task was submitted
+				ThreadPoolExecutor current = handler.executor;
+				if (current != executor && !current.isShutdown()) {
+					current.execute(task);
+					return;
+				}
+				handler.rejected.addAndGet(discard(task));
+				throw new RejectedExecutionException("Handler executor has been shutdown");
+			}
+
+			switch (handler.policy) {
+				case BLOCK -> {
+					try {
+						executor.getQueue().put(task);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						handler.rejected.addAndGet(discard(task));
+						throw new RejectedExecutionException("Interrupted while waiting for the handler queue", e);
+					}
+				}
+				case DROP_OLDEST -> {
+					Runnable oldest = executor.getQueue().poll();
+					if (oldest != null) {
+						handler.dropped.addAndGet(discard(oldest));
+					}
+					executor.execute(task);
+				}
+				case DROP_NEWEST -> {
+					handler.dropped.addAndGet(discard(task));
+					throw new RejectedExecutionException("Handler queue is full, dropped newest");
+				}
+				case REJECT -> {
+					handler.rejected.addAndGet(discard(task));
+					throw new RejectedExecutionException("Handler queue is full");
+				}
+			}
+		}
+	}
+
+	private static class HandlerThreadFactory implements ThreadFactory {
+		private static final AtomicInteger COUNT = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "Arucas Discord Handler " + COUNT.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	// Tasks that stand in for several events report how many were discarded
+	public interface Droppable extends Runnable {
+		long onDropped();
+	}
+
+	public enum OverflowPolicy {
+		BLOCK,
+		DROP_OLDEST,
+		DROP_NEWEST,
+		REJECT;
+
+		public static OverflowPolicy fromName(String name) {
+			return switch (name.toLowerCase()) {
+				case "block" -> BLOCK;
+				case "drop_oldest", "drop oldest" -> DROP_OLDEST;
+				case "drop_newest", "drop newest" -> DROP_NEWEST;
+				case "reject" -> REJECT;
+				default -> throw new RuntimeError("'%s' is an invalid overflow policy".formatted(name));
+			};
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package me.senseiwells.arucas.discord.impl;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Runs tasks with the same key one at a time in submission order, different keys run in parallel
+public class KeyedSequencer {
+	private final Map<Long, Lane> lanes;
+
+	public KeyedSequencer() {
+		this.lanes = new ConcurrentHashMap<>();
+	}
+
+	// Returns false if the task was dropped or rejected rather than queued
+	public boolean execute(HandlerExecutor executor, long key, Runnable task) {
+		while (true) {
+			Lane lane = this.lanes.computeIfAbsent(key, Lane::new);
+			switch (lane.offer(executor, task)) {
+				case SCHEDULE -> {
+					return executor.execute(lane);
+				}
+				case QUEUED -> {
+					return true;
+				}
+				case DISCARDED -> {
+					return false;
+				}
+				// The lane finished while we were offering, so start a new one
+				case RETIRED -> { }
+			}
+		}
+	}
+
+	public int getActiveKeys() {
+		return this.lanes.size();
+	}
+
+	private enum Offer {
+		SCHEDULE,
+		QUEUED,
+		DISCARDED,
+		RETIRED
+	}
+
+	private class Lane implements HandlerExecutor.Droppable {
+		private final long key;
+		private final ArrayDeque<Runnable> pending;
+		private boolean scheduled;
+		private boolean retired;
+
+		private Lane(long key) {
+			this.key = key;
+			this.pending = new ArrayDeque<>();
+		}
+
+		private synchronized Offer offer(HandlerExecutor executor, Runnable task) {
+			if (this.retired) {
+				return Offer.RETIRED;
+			}
+			// Each lane is bounded like the handler queue so a single busy key can't grow forever
+			int capacity = executor.getQueueCapacity();
+			while (this.pending.size() >= capacity) {
+				switch (executor.getPolicy()) {
+					case BLOCK -> {
+						try {
+							this.wait();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							executor.recordRejected(1);
+							return Offer.DISCARDED;
+						}
+						if (this.retired) {
+							return Offer.RETIRED;
+						}
+					}
+					case DROP_OLDEST -> {
+						this.pending.poll();
+						executor.recordDropped(1);
+					}
+					case DROP_NEWEST -> {
+						executor.recordDropped(1);
+						return Offer.DISCARDED;
+					}
+					case REJECT -> {
+						executor.recordRejected(1);
+						return Offer.DISCARDED;
+					}
+				}
+			}
+			this.pending.add(task);
+			if (this.scheduled) {
+				return Offer.QUEUED;
+			}
+			this.scheduled = true;
+			return Offer.SCHEDULE;
+		}
+
+		private synchronized Runnable next() {
+			Runnable next = this.pending.poll();
+			if (next == null) {
+				this.retire();
+			} else {
+				this.notifyAll();
+			}
+			return next;
+		}
+
+		private void retire() {
+			this.retired = true;
+			KeyedSequencer.this.lanes.remove(this.key, this);
+			this.notifyAll();
+		}
+
+		@Override
+		public void run() {
+			Runnable task;
+			while ((task = this.next()) != null) {
+				try {
+					task.run();
+				} catch (RuntimeException e) {
+					// A failing task must not stall the rest of the lane
+					Thread thread = Thread.currentThread();
+					thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+				}
+			}
+		}
+
+		@Override
+		public synchronized long onDropped() {
+			long dropped = this.pending.size();
+			this.pending.clear();
+			this.retire();
+			return dropped;
+		}
+	}
+}
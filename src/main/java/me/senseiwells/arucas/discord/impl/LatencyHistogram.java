@@ -0,0 +1,103 @@
+package me.senseiwells.arucas.discord.impl;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Microsecond buckets, four per power of two, so percentiles are within 25% of the recorded value
+public class LatencyHistogram {
+	private static final int SUB_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	// Enough buckets for just over a day
+	private static final int MAX_EXPONENT = 36;
+	private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) << SUB_BITS;
+
+	private final AtomicLongArray buckets;
+	private final LongAdder count;
+	private final LongAdder total;
+	private final LongAccumulator max;
+
+	public LatencyHistogram() {
+		this.buckets = new AtomicLongArray(BUCKETS);
+		this.count = new LongAdder();
+		this.total = new LongAdder();
+		this.max = new LongAccumulator(Math::max, 0);
+	}
+
+	public void record(long nanos) {
+		long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+		this.buckets.incrementAndGet(getIndex(micros));
+		this.count.increment();
+		this.total.add(micros);
+		this.max.accumulate(micros);
+	}
+
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	public double getMeanMillis() {
+		long count = this.count.sum();
+		return count == 0 ? 0 : this.total.sum() / (double) count / 1000;
+	}
+
+	public double getMaxMillis() {
+		return this.max.get() / 1000.0;
+	}
+
+	public double getPercentileMillis(double percentile) {
+		long[] counts = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = this.buckets.get(i);
+			count += counts[i];
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long target = (long) Math.ceil(count * percentile / 100);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= target) {
+				// The upper bound of the bucket, the maximum is exact so it caps the estimate
+				return Math.min(getLowerBound(i + 1) - 1, this.max.get()) / 1000.0;
+			}
+		}
+		return this.getMaxMillis();
+	}
+
+	public Map<String, Object> getStats() {
+		return Map.of(
+			"count", this.getCount(),
+			"mean", this.getMeanMillis(),
+			"p50", this.getPercentileMillis(50),
+			"p90", this.getPercentileMillis(90),
+			"p99", this.getPercentileMillis(99),
+			"max", this.getMaxMillis()
+		);
+	}
+
+	private static int getIndex(long micros) {
+		if (micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		if (exponent > MAX_EXPONENT) {
+			return BUCKETS - 1;
+		}
+		int mantissa = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return ((exponent - SUB_BITS + 1) << SUB_BITS) + mantissa;
+	}
+
+	private static long getLowerBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = (index >>> SUB_BITS) + SUB_BITS - 1;
+		long mantissa = index & (SUB_BUCKETS - 1);
+		return (SUB_BUCKETS + mantissa) << (exponent - SUB_BITS);
+	}
+}
@@ -0,0 +1,157 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.builtin.NullDef;
+import me.senseiwells.arucas.builtin.StringDef;
+import me.senseiwells.arucas.classes.ClassInstance;
+import me.senseiwells.arucas.classes.PrimitiveDefinition;
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import me.senseiwells.arucas.utils.impl.ArucasMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Fields are declared once in static initialisers, their key instances are created once per interpreter
+public class MapSchema {
+	// Keys hold their interpreter's definitions, so only a few are kept and the oldest is dropped
+	private static final int MAX_CACHED_INTERPRETERS = 8;
+
+	private final String name;
+	private final List<Field<?>> fields;
+	private volatile Keys[] keys;
+
+	public MapSchema(String name) {
+		this.name = name;
+		this.fields = new ArrayList<>();
+		this.keys = new Keys[0];
+	}
+
+	public <V> Field<V> required(String key, Class<? extends PrimitiveDefinition<V>> type) {
+		return this.add(key, type, true);
+	}
+
+	public <V> Field<V> optional(String key, Class<? extends PrimitiveDefinition<V>> type) {
+		return this.add(key, type, false);
+	}
+
+	// The value is left unconverted for keys that accept more than one type
+	public Field<ClassInstance> any(String key) {
+		return this.add(key, null, false);
+	}
+
+	private <V> Field<V> add(String key, Class<? extends PrimitiveDefinition<V>> type, boolean required) {
+		Field<V> field = new Field<>(this, this.fields.size(), key, type, required);
+		this.fields.add(field);
+		return field;
+	}
+
+	public Decoded decode(Interpreter interpreter, ArucasMap map) {
+		ClassInstance[] keys = this.getKeys(interpreter);
+		Object[] values = new Object[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			Field<?> field = this.fields.get(i);
+			ClassInstance instance = map.get(interpreter, keys[i]);
+			if (instance == null || instance.getDefinition() instanceof NullDef) {
+				if (field.required) {
+					throw new RuntimeError("%s is missing the required key '%s'".formatted(this.name, field.key));
+				}
+				continue;
+			}
+			if (field.type == null) {
+				values[i] = instance;
+				continue;
+			}
+			Object value = instance.getPrimitive(field.type);
+			if (value == null) {
+				throw new RuntimeError("%s key '%s' should be %s but was %s".formatted(
+					this.name, field.key, field.getTypeName(), instance.getDefinition().getName()
+				));
+			}
+			values[i] = value;
+		}
+		return new Decoded(this, values);
+	}
+
+	private ClassInstance[] getKeys(Interpreter interpreter) {
+		StringDef definition = interpreter.getPrimitive(StringDef.class);
+		for (Keys keys : this.keys) {
+			if (keys.definition == definition) {
+				return keys.instances;
+			}
+		}
+		return this.createKeys(interpreter, definition);
+	}
+
+	private synchronized ClassInstance[] createKeys(Interpreter interpreter, StringDef definition) {
+		Keys[] cached = this.keys;
+		for (Keys keys : cached) {
+			if (keys.definition == definition) {
+				return keys.instances;
+			}
+		}
+		ClassInstance[] instances = new ClassInstance[this.fields.size()];
+		for (int i = 0; i < instances.length; i++) {
+			instances[i] = interpreter.create(StringDef.class, this.fields.get(i).key);
+		}
+		int kept = Math.min(cached.length, MAX_CACHED_INTERPRETERS - 1);
+		Keys[] updated = new Keys[kept + 1];
+		System.arraycopy(cached, cached.length - kept, updated, 0, kept);
+		updated[kept] = new Keys(definition, instances);
+		this.keys = updated;
+		return instances;
+	}
+
+	public static final class Field<V> {
+		private final MapSchema schema;
+		private final int index;
+		private final String key;
+		private final Class<? extends PrimitiveDefinition<V>> type;
+		private final boolean required;
+
+		private Field(MapSchema schema, int index, String key, Class<? extends PrimitiveDefinition<V>> type, boolean required) {
+			this.schema = schema;
+			this.index = index;
+			this.key = key;
+			this.type = type;
+			this.required = required;
+		}
+
+		public String getKey() {
+			return this.key;
+		}
+
+		private String getTypeName() {
+			String name = this.type.getSimpleName();
+			return name.endsWith("Def") ? name.substring(0, name.length() - 3) : name;
+		}
+	}
+
+	public static final class Decoded {
+		private final MapSchema schema;
+		private final Object[] values;
+
+		private Decoded(MapSchema schema, Object[] values) {
+			this.schema = schema;
+			this.values = values;
+		}
+
+		@SuppressWarnings("unchecked")
+		public <V> V get(Field<V> field) {
+			if (field.schema != this.schema) {
+				throw new IllegalArgumentException("Field '%s' is not part of %s".formatted(field.key, this.schema.name));
+			}
+			return (V) this.values[field.index];
+		}
+
+		public <V> V get(Field<V> field, V fallback) {
+			V value = this.get(field);
+			return value == null ? fallback : value;
+		}
+
+		public boolean has(Field<?> field) {
+			return this.get(field) != null;
+		}
+	}
+
+	private record Keys(StringDef definition, ClassInstance[] instances) { }
+}
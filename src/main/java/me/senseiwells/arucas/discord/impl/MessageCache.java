@@ -0,0 +1,138 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.discord.DiscordUtils;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MessageCache {
+	public static final int DEFAULT_SIZE = 1000;
+	public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(15);
+
+	private final Map<Long, Entry> messages;
+	private final Queue<Long> insertionOrder;
+	private final AtomicInteger queued;
+	private final Map<Long, CompletableFuture<Message>> pending;
+	private volatile int maxSize;
+	private volatile long ttl;
+
+	public MessageCache() {
+		this.messages = new ConcurrentHashMap<>();
+		this.insertionOrder = new ConcurrentLinkedQueue<>();
+		this.queued = new AtomicInteger();
+		this.pending = new ConcurrentHashMap<>();
+		this.maxSize = DEFAULT_SIZE;
+		this.ttl = DEFAULT_TTL;
+	}
+
+	public void configure(int maxSize, long ttl) {
+		this.maxSize = Math.max(0, maxSize);
+		this.ttl = ttl;
+		this.trim();
+	}
+
+	public boolean isEnabled() {
+		return this.maxSize > 0;
+	}
+
+	public int size() {
+		return this.messages.size();
+	}
+
+	public void put(Message message) {
+		if (!this.isEnabled()) {
+			return;
+		}
+		long id = message.getIdLong();
+		Entry previous = this.messages.put(id, new Entry(message, System.currentTimeMillis() + this.ttl));
+		if (previous == null) {
+			this.insertionOrder.add(id);
+			this.queued.incrementAndGet();
+			this.trim();
+		}
+	}
+
+	public void remove(long id) {
+		this.messages.remove(id);
+	}
+
+	public Message getIfPresent(long id) {
+		Entry entry = this.messages.get(id);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.expiry < System.currentTimeMillis()) {
+			this.messages.remove(id, entry);
+			return null;
+		}
+		return entry.message;
+	}
+
+	public CompletableFuture<Message> get(MessageChannel channel, long id) {
+		Message cached = this.getIfPresent(id);
+		if (cached != null) {
+			// Discord only finds a message through its own channel, so a hit from another channel is still asked for
+			return isInChannel(cached, channel) ? CompletableFuture.completedFuture(cached) : this.request(channel, id);
+		}
+		// Concurrent misses for the same message share a single request
+		CompletableFuture<Message> future = new CompletableFuture<>();
+		CompletableFuture<Message> existing = this.pending.putIfAbsent(id, future);
+		if (existing != null) {
+			return existing.thenCompose(message -> {
+				return isInChannel(message, channel) ? CompletableFuture.completedFuture(message) : this.request(channel, id);
+			});
+		}
+		DiscordUtils.submit("retrieveMessageById", channel.getIdLong(), channel.retrieveMessageById(id)).whenComplete((message, throwable) -> {
+			this.pending.remove(id, future);
+			if (throwable != null) {
+				future.completeExceptionally(throwable);
+				return;
+			}
+			this.put(message);
+			future.complete(message);
+		});
+		return future;
+	}
+
+	private CompletableFuture<Message> request(MessageChannel channel, long id) {
+		return DiscordUtils.submit("retrieveMessageById", channel.getIdLong(), channel.retrieveMessageById(id));
+	}
+
+	private static boolean isInChannel(Message message, MessageChannel channel) {
+		return message.getChannel().getIdLong() == channel.getIdLong();
+	}
+
+	public Message retrieve(MessageChannel channel, long id) {
+		try {
+			return this.get(channel, id).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+
+	private void trim() {
+		// The queue can hold ids that were already removed, so it is also kept within bounds
+		int maxSize = this.maxSize;
+		while (this.messages.size() > maxSize || this.queued.get() > maxSize * 2) {
+			Long oldest = this.insertionOrder.poll();
+			if (oldest == null) {
+				break;
+			}
+			this.queued.decrementAndGet();
+			this.messages.remove(oldest);
+		}
+	}
+
+	private record Entry(Message message, long expiry) { }
+}
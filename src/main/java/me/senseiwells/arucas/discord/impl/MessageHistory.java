@@ -0,0 +1,63 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.discord.DiscordUtils;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.requests.restaction.pagination.MessagePaginationAction;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Walks a channel's history page by page, fetching the next page while the current one is consumed
+public class MessageHistory implements Iterator<Message> {
+	private static final int PAGE_SIZE = 100;
+
+	private final MessagePaginationAction action;
+	private final long channelId;
+	private Iterator<Message> page;
+	private CompletableFuture<List<Message>> next;
+
+	public MessageHistory(MessagePaginationAction action) {
+		// Without caching only the current and next page are ever held
+		this.action = action.limit(PAGE_SIZE).cache(false);
+		this.channelId = action.getChannel().getIdLong();
+		this.page = Collections.emptyIterator();
+		this.next = DiscordUtils.submit("iterateHistory", this.channelId, this.action);
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!this.page.hasNext()) {
+			if (this.next == null) {
+				return false;
+			}
+			List<Message> messages = this.awaitNext();
+			this.next = messages.size() < PAGE_SIZE ? null : DiscordUtils.submit("iterateHistory", this.channelId, this.action);
+			this.page = messages.iterator();
+		}
+		return true;
+	}
+
+	@Override
+	public Message next() {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return this.page.next();
+	}
+
+	private List<Message> awaitNext() {
+		try {
+			return this.next.join();
+		} catch (CompletionException e) {
+			this.next = null;
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+}
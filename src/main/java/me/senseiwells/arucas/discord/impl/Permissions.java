@@ -0,0 +1,82 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.builtin.IterableDef;
+import me.senseiwells.arucas.builtin.NumberDef;
+import me.senseiwells.arucas.classes.ClassInstance;
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import me.senseiwells.arucas.utils.impl.ArucasIterable;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Permissions {
+	// Built once, permissions can be named by their display name or their constant name
+	private static final Map<String, Permission> BY_NAME;
+
+	static {
+		Map<String, Permission> byName = new HashMap<>();
+		for (Permission permission : Permission.values()) {
+			if (permission != Permission.UNKNOWN) {
+				byName.put(permission.getName().toLowerCase(), permission);
+				byName.put(permission.name().toLowerCase(), permission);
+			}
+		}
+		BY_NAME = Map.copyOf(byName);
+	}
+
+	public static Permission parse(String name) {
+		Permission permission = BY_NAME.get(name.toLowerCase());
+		if (permission == null) {
+			throw new RuntimeError("'%s' is an invalid permission".formatted(name));
+		}
+		return permission;
+	}
+
+	// Permissions can be given as a list of names or as a raw mask
+	public static long parseMask(Interpreter interpreter, ClassInstance instance) {
+		Double raw = instance.getPrimitive(NumberDef.class);
+		if (raw != null) {
+			return raw.longValue() & Permission.ALL_PERMISSIONS;
+		}
+		ArucasIterable names = instance.getPrimitive(IterableDef.class);
+		if (names == null) {
+			throw new RuntimeError("Permissions must be a list of names or a permission mask");
+		}
+		long mask = 0;
+		for (ClassInstance name : names) {
+			mask |= parse(name.toString(interpreter)).getRawValue();
+		}
+		return mask;
+	}
+
+	public static List<String> getNames(long mask) {
+		return Permission.getPermissions(mask).stream().map(Permission::getName).toList();
+	}
+
+	public static long getEffective(Member member) {
+		if (member.isOwner()) {
+			return Permission.ALL_PERMISSIONS;
+		}
+		long raw = member.getGuild().getPublicRole().getPermissionsRaw();
+		for (Role role : member.getRoles()) {
+			raw |= role.getPermissionsRaw();
+		}
+		return (raw & Permission.ADMINISTRATOR.getRawValue()) != 0 ? Permission.ALL_PERMISSIONS : raw;
+	}
+
+	public static boolean has(Member member, GuildChannel channel, long required) {
+		if (channel == null) {
+			return (getEffective(member) & required) == required;
+		}
+		// Channel overrides are resolved by JDA
+		EnumSet<Permission> permissions = Permission.getPermissions(required);
+		return member.hasPermission(channel, permissions);
+	}
+}
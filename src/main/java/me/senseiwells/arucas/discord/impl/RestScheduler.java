@@ -0,0 +1,280 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.requests.restaction.interactions.InteractionCallbackAction;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Requests wait in a lane until it has capacity, bulk requests only start while no interactive requests are waiting
+// JDA doesn't say when a request is parked in a rate limit bucket, so each bucket may only take a share of a lane's
+// slots, later requests for a busy bucket wait here without holding a slot that other buckets could use
+public class RestScheduler {
+	// Like Discord's buckets a route is split by its major parameter, the channel or server the request is for,
+	// requests that aren't tied to either share one bucket per route
+	public static final long NO_MAJOR = 0;
+	// A single bucket can hold at most a quarter of a lane's slots
+	private static final int ROUTE_SHARE = 4;
+	private static final ThreadLocal<Lane> CURRENT_LANE = ThreadLocal.withInitial(() -> Lane.INTERACTIVE);
+
+	private final DiscordMetrics metrics;
+	private final Map<Lane, LaneState> lanes;
+	private final Map<String, RouteStats> routes;
+	// Guarded by the scheduler, buckets are removed once nothing is running in them
+	private final Map<Bucket, Integer> running;
+
+	public RestScheduler(DiscordMetrics metrics) {
+		this.metrics = metrics;
+		this.lanes = new EnumMap<>(Lane.class);
+		for (Lane lane : Lane.values()) {
+			this.lanes.put(lane, new LaneState(lane.defaultConcurrency));
+		}
+		this.routes = new ConcurrentHashMap<>();
+		this.running = new HashMap<>();
+	}
+
+	public static <T> T runIn(Lane lane, Supplier<T> supplier) {
+		Lane previous = CURRENT_LANE.get();
+		CURRENT_LANE.set(lane);
+		try {
+			return supplier.get();
+		} finally {
+			CURRENT_LANE.set(previous);
+		}
+	}
+
+	public synchronized void setConcurrency(Lane lane, int concurrency) {
+		if (concurrency < 1) {
+			throw new RuntimeError("Lane concurrency must be at least 1");
+		}
+		this.lanes.get(lane).concurrency = concurrency;
+		this.drain();
+	}
+
+	public <T> T complete(String route, long major, RestAction<T> action) {
+		try {
+			return this.submit(route, major, action).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+
+	public <T> CompletableFuture<T> submit(String route, long major, RestAction<T> action) {
+		return this.submit(CURRENT_LANE.get(), route, major, action);
+	}
+
+	public <T> CompletableFuture<T> submit(Lane lane, String route, long major, RestAction<T> action) {
+		RouteStats stats = this.routes.computeIfAbsent(route, r -> new RouteStats());
+		if (action instanceof InteractionCallbackAction) {
+			// Interaction callbacks must be sent within three seconds so they never wait for a lane
+			Pending<T> pending = new Pending<>(null, null, stats, action);
+			pending.start();
+			return pending.future;
+		}
+		Pending<T> pending = new Pending<>(lane, new Bucket(route, major), stats, action);
+		synchronized (this) {
+			this.lanes.get(lane).waiting.add(pending);
+		}
+		this.drain();
+		return pending.future;
+	}
+
+	private void drain() {
+		List<Pending<?>> ready = new ArrayList<>();
+		synchronized (this) {
+			LaneState interactive = this.lanes.get(Lane.INTERACTIVE);
+			interactive.poll(ready, this.running);
+			// Interactive requests left waiting with free slots are only held back by their bucket's share
+			if (interactive.waiting.isEmpty() || interactive.running < interactive.concurrency) {
+				this.lanes.get(Lane.BULK).poll(ready, this.running);
+			}
+		}
+		for (Pending<?> pending : ready) {
+			pending.start();
+		}
+	}
+
+	private void finish(Lane lane, Bucket bucket) {
+		synchronized (this) {
+			this.lanes.get(lane).running--;
+			this.running.computeIfPresent(bucket, (b, count) -> count == 1 ? null : count - 1);
+		}
+		this.drain();
+	}
+
+	public synchronized int getWaiting() {
+		int waiting = 0;
+		for (LaneState state : this.lanes.values()) {
+			waiting += state.waiting.size();
+		}
+		return waiting;
+	}
+
+	public synchronized int getRunning() {
+		int running = 0;
+		for (LaneState state : this.lanes.values()) {
+			running += state.running;
+		}
+		return running;
+	}
+
+	public synchronized Map<String, Object> getStats() {
+		Map<String, Object> lanes = new LinkedHashMap<>();
+		this.lanes.forEach((lane, state) -> lanes.put(lane.name().toLowerCase(), Map.of(
+			"concurrency", state.concurrency,
+			"running", state.running,
+			"waiting", state.waiting.size()
+		)));
+		Map<String, Object> routes = new TreeMap<>();
+		this.routes.forEach((route, stats) -> routes.put(route, stats.toMap()));
+		return Map.of("lanes", lanes, "routes", routes);
+	}
+
+	public enum Lane {
+		INTERACTIVE(16),
+		BULK(2);
+
+		private final int defaultConcurrency;
+
+		Lane(int defaultConcurrency) {
+			this.defaultConcurrency = defaultConcurrency;
+		}
+
+		public static Lane fromName(String name) {
+			return switch (name.toLowerCase()) {
+				case "interactive" -> INTERACTIVE;
+				case "bulk" -> BULK;
+				default -> throw new RuntimeError("'%s' is an invalid lane, expected 'interactive' or 'bulk'".formatted(name));
+			};
+		}
+	}
+
+	private static class LaneState {
+		private final Queue<Pending<?>> waiting;
+		private int concurrency;
+		private int running;
+
+		private LaneState(int concurrency) {
+			this.waiting = new ArrayDeque<>();
+			this.concurrency = concurrency;
+		}
+
+		private void poll(List<Pending<?>> ready, Map<Bucket, Integer> buckets) {
+			int bucketLimit = Math.max(1, this.concurrency / ROUTE_SHARE);
+			Iterator<Pending<?>> iterator = this.waiting.iterator();
+			while (this.running < this.concurrency && iterator.hasNext()) {
+				Pending<?> pending = iterator.next();
+				if (buckets.getOrDefault(pending.bucket, 0) >= bucketLimit) {
+					continue;
+				}
+				iterator.remove();
+				this.running++;
+				buckets.merge(pending.bucket, 1, Integer::sum);
+				ready.add(pending);
+			}
+		}
+	}
+
+	private record Bucket(String route, long major) { }
+
+	private class Pending<T> {
+		private final Lane lane;
+		private final Bucket bucket;
+		private final RouteStats stats;
+		private final RestAction<T> action;
+		private final CompletableFuture<T> future;
+		private final long queued;
+
+		private Pending(Lane lane, Bucket bucket, RouteStats stats, RestAction<T> action) {
+			this.lane = lane;
+			this.bucket = bucket;
+			this.stats = stats;
+			this.action = action;
+			this.future = new CompletableFuture<>();
+			this.queued = System.nanoTime();
+		}
+
+		private void start() {
+			long started = System.nanoTime();
+			this.stats.wait.record(started - this.queued);
+			CompletableFuture<T> sent;
+			try {
+				sent = this.action.submit();
+			} catch (RuntimeException e) {
+				sent = CompletableFuture.failedFuture(e);
+			}
+			sent.whenComplete((value, throwable) -> {
+				// The latency includes any time JDA spent waiting on the route's rate limit bucket
+				long latency = System.nanoTime() - started;
+				this.stats.latency.record(latency);
+				RestScheduler.this.metrics.recordRest(latency, throwable != null);
+				if (this.lane != null) {
+					RestScheduler.this.finish(this.lane, this.bucket);
+				}
+				if (throwable != null) {
+					this.stats.errors.increment();
+					this.future.completeExceptionally(throwable);
+				} else {
+					this.future.complete(value);
+				}
+			});
+		}
+	}
+
+	private static class RouteStats {
+		private final Timing wait = new Timing();
+		private final Timing latency = new Timing();
+		private final LongAdder errors = new LongAdder();
+
+		private Map<String, Object> toMap() {
+			return Map.of(
+				"requests", this.latency.count.sum(),
+				"errors", this.errors.sum(),
+				"averageWait", this.wait.getAverageMillis(),
+				"maxWait", this.wait.getMaxMillis(),
+				"averageLatency", this.latency.getAverageMillis(),
+				"maxLatency", this.latency.getMaxMillis()
+			);
+		}
+	}
+
+	private static class Timing {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder total = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		private void record(long nanos) {
+			this.count.increment();
+			this.total.add(nanos);
+			this.max.accumulate(nanos);
+		}
+
+		private double getAverageMillis() {
+			long count = this.count.sum();
+			return count == 0 ? 0 : this.total.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+		}
+
+		private double getMaxMillis() {
+			return this.max.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.discord.DiscordUtils.LocatedFunction;
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Prefix and name are joined into one key, the trie is rebuilt when commands change so matching never locks
+public class TextCommandTrie {
+	private final Map<String, LocatedFunction> commands;
+	private volatile Node root;
+
+	public TextCommandTrie() {
+		this.commands = new HashMap<>();
+		this.root = null;
+	}
+
+	public synchronized void register(String prefix, String name, LocatedFunction function) {
+		if (name.isEmpty() || containsWhitespace(prefix) || containsWhitespace(name)) {
+			throw new RuntimeError("Text command '%s%s' must have a name and cannot contain whitespace".formatted(prefix, name));
+		}
+		this.commands.put(prefix + name, function);
+		this.rebuild();
+	}
+
+	public synchronized boolean remove(String prefix, String name) {
+		if (this.commands.remove(prefix + name) == null) {
+			return false;
+		}
+		this.rebuild();
+		return true;
+	}
+
+	public boolean isEmpty() {
+		return this.root == null;
+	}
+
+	// The longest command that is followed by whitespace or the end of the message wins
+	@Nullable
+	public Match match(String content) {
+		Node node = this.root;
+		LocatedFunction function = null;
+		int end = 0;
+		for (int i = 0; node != null; i++) {
+			if (node.function != null && (i == content.length() || Character.isWhitespace(content.charAt(i)))) {
+				function = node.function;
+				end = i;
+			}
+			if (i == content.length()) {
+				break;
+			}
+			node = node.get(content.charAt(i));
+		}
+		if (function == null) {
+			return null;
+		}
+		return new Match(function, content.substring(0, end), tokenize(content, end));
+	}
+
+	private void rebuild() {
+		if (this.commands.isEmpty()) {
+			this.root = null;
+			return;
+		}
+		Node root = new Node();
+		this.commands.forEach((command, function) -> {
+			Node node = root;
+			for (int i = 0; i < command.length(); i++) {
+				node = node.getOrAdd(command.charAt(i));
+			}
+			node.function = function;
+		});
+		this.root = root;
+	}
+
+	// Arguments are split on whitespace, double quotes keep words together
+	private static List<String> tokenize(String content, int start) {
+		List<String> arguments = new ArrayList<>();
+		StringBuilder builder = new StringBuilder();
+		boolean quoted = false;
+		boolean token = false;
+		for (int i = start; i < content.length(); i++) {
+			char c = content.charAt(i);
+			if (c == '"') {
+				quoted = !quoted;
+				token = true;
+			} else if (!quoted && Character.isWhitespace(c)) {
+				if (token) {
+					arguments.add(builder.toString());
+					builder.setLength(0);
+					token = false;
+				}
+			} else {
+				builder.append(c);
+				token = true;
+			}
+		}
+		if (token) {
+			arguments.add(builder.toString());
+		}
+		return arguments;
+	}
+
+	private static boolean containsWhitespace(String string) {
+		return string.chars().anyMatch(Character::isWhitespace);
+	}
+
+	public record Match(LocatedFunction function, String command, List<String> arguments) { }
+
+	private static class Node {
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private LocatedFunction function;
+
+		private Node get(char key) {
+			int index = Arrays.binarySearch(this.keys, key);
+			return index < 0 ? null : this.children[index];
+		}
+
+		private Node getOrAdd(char key) {
+			int index = Arrays.binarySearch(this.keys, key);
+			if (index >= 0) {
+				return this.children[index];
+			}
+			index = -index - 1;
+			Node child = new Node();
+			char[] keys = new char[this.keys.length + 1];
+			Node[] children = new Node[this.children.length + 1];
+			System.arraycopy(this.keys, 0, keys, 0, index);
+			System.arraycopy(this.children, 0, children, 0, index);
+			keys[index] = key;
+			children[index] = child;
+			System.arraycopy(this.keys, index, keys, index + 1, this.keys.length - index);
+			System.arraycopy(this.children, index, children, index + 1, this.children.length - index);
+			this.keys = keys;
+			this.children = children;
+			return child;
+		}
+	}
+}
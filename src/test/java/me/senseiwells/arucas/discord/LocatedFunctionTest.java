@@ -0,0 +1,60 @@
+package me.senseiwells.arucas.discord;
+
+import me.senseiwells.arucas.builtin.BooleanDef;
+import me.senseiwells.arucas.builtin.NumberDef;
+import me.senseiwells.arucas.classes.ClassInstance;
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.DiscordUtils.LocatedFunction;
+import me.senseiwells.arucas.discord.fixtures.Fixtures;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocatedFunctionTest {
+	@Test
+	void keepsTheCallersInterpreter() {
+		Interpreter interpreter = Fixtures.createInterpreter();
+		LocatedFunction function = new LocatedFunction(interpreter, Fixtures.createFunction("handler", 1));
+		assertSame(interpreter, function.interpreter());
+	}
+
+	@Test
+	void variablesDoNotLeakBetweenCalls() {
+		LocatedFunction function = Fixtures.createScriptFunction("""
+			fun(first) {
+				if (first) {
+					secret = 10;
+					return true;
+				}
+				try {
+					return secret;
+				} catch (e) {
+					return false;
+				}
+			}
+			""");
+		assertTrue(invoke(function, true).getPrimitive(BooleanDef.class));
+		assertFalse(invoke(function, false).getPrimitive(BooleanDef.class));
+	}
+
+	@Test
+	void sequentialCallsStartFromTheSameState() {
+		LocatedFunction function = Fixtures.createScriptFunction("""
+			fun(value) {
+				count = 0;
+				while (count < value) {
+					count = count + 1;
+				}
+				return count;
+			}
+			""");
+		assertEquals(3.0, invoke(function, 3).getPrimitive(NumberDef.class));
+		assertEquals(3.0, invoke(function, 3).getPrimitive(NumberDef.class));
+	}
+
+	private static ClassInstance invoke(LocatedFunction function, Object argument) {
+		return function.invoke(branch -> List.of(branch.convertValue(argument)));
+	}
+}
@@ -0,0 +1,69 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.fixtures.Fixtures;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscordBotTest {
+	@Test
+	void shutdownReleasesTheBot() throws MalformedObjectNameException {
+		int registered = countMetrics();
+		JDA jda = Fixtures.createJda();
+		DiscordBot bot = new DiscordBot(jda, Fixtures.createInterpreter());
+		assertSame(bot, DiscordBot.get(jda));
+		assertEquals(registered + 1, countMetrics());
+
+		bot.shutdown();
+		assertNull(DiscordBot.get(jda));
+		assertEquals(registered, countMetrics());
+		assertFalse(bot.getHandlers().execute(() -> { }));
+	}
+
+	@Test
+	void recreatedBotsDoNotLeak() throws MalformedObjectNameException {
+		int registered = countMetrics();
+		JDA jda = Fixtures.createJda();
+		for (int i = 0; i < 5; i++) {
+			DiscordBot bot = new DiscordBot(jda, Fixtures.createInterpreter());
+			assertSame(bot, DiscordBot.get(jda));
+			bot.shutdown();
+		}
+		assertNull(DiscordBot.get(jda));
+		assertEquals(registered, countMetrics());
+	}
+
+	@Test
+	void eventsAreCountedWithOrWithoutListeners() {
+		JDA jda = Fixtures.createJda();
+		User user = Fixtures.createUser(jda);
+		Message message = Fixtures.createMessage(jda, Fixtures.createChannel(jda, Fixtures.createServer(jda, user)), user, "hello");
+		Interpreter interpreter = Fixtures.createInterpreter();
+		DiscordBot bot = new DiscordBot(jda, interpreter);
+		try {
+			bot.onEvent(Fixtures.createMessageEvent(jda, message));
+			bot.onEvent(Fixtures.createMessageEvent(jda, message));
+			// Registering replaces the cached listeners but the count carries on
+			bot.registerEvent(interpreter, Fixtures.createFunction("handler", 1), "MessageReceivedEvent");
+			bot.onEvent(Fixtures.createMessageEvent(jda, message));
+			assertEquals(Map.of("MessageReceivedEvent", 3L), bot.getMetrics().getEventCounts());
+			assertEquals(3, bot.getMetrics().getEventsTotal());
+		} finally {
+			bot.shutdown();
+		}
+	}
+
+	private static int countMetrics() throws MalformedObjectNameException {
+		ObjectName pattern = new ObjectName("me.senseiwells.arucas.discord:type=DiscordMetrics,*");
+		return ManagementFactory.getPlatformMBeanServer().queryNames(pattern, null).size();
+	}
+}
@@ -0,0 +1,90 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbedTemplateTest {
+	@Test
+	void nullTextCompilesToNull() {
+		assertNull(EmbedTemplate.Text.compile("title", null, 10));
+	}
+
+	@Test
+	void splitsLiteralsAndPlaceholders() {
+		EmbedTemplate.Text text = EmbedTemplate.Text.compile("title", "Hello {name}, welcome to {server_1}!", 100);
+		assertArrayEquals(new String[] { "Hello ", ", welcome to ", "!" }, text.literals);
+		assertArrayEquals(new String[] { "name", "server_1" }, text.placeholders);
+		assertEquals("Hello Sensei, welcome to Arucas!", text.render(Map.of("name", "Sensei", "server_1", "Arucas")));
+	}
+
+	@Test
+	void adjacentPlaceholdersHaveEmptyLiterals() {
+		EmbedTemplate.Text text = EmbedTemplate.Text.compile("title", "{a}{b}", 100);
+		assertArrayEquals(new String[] { "", "", "" }, text.literals);
+		assertArrayEquals(new String[] { "a", "b" }, text.placeholders);
+		assertEquals("12", text.render(Map.of("a", "1", "b", "2")));
+	}
+
+	@Test
+	void invalidPlaceholdersStayLiteral() {
+		for (String literal : List.of("{}", "{two words}", "{name", "name}", "{a-b}", "{{}")) {
+			EmbedTemplate.Text text = EmbedTemplate.Text.compile("title", literal, 100);
+			assertArrayEquals(new String[] { literal }, text.literals, literal);
+			assertEquals(0, text.placeholders.length, literal);
+			assertEquals(literal, text.render(Map.of()));
+		}
+	}
+
+	@Test
+	void placeholderAfterBraceIsStillFound() {
+		EmbedTemplate.Text text = EmbedTemplate.Text.compile("title", "{ {name}", 100);
+		assertArrayEquals(new String[] { "{ ", "" }, text.literals);
+		assertArrayEquals(new String[] { "name" }, text.placeholders);
+	}
+
+	@Test
+	void lengthOnlyCountsLiteralText() {
+		assertNotNull(EmbedTemplate.Text.compile("title", "{placeholder}", 3));
+		assertNotNull(EmbedTemplate.Text.compile("title", "abc", 3));
+		RuntimeError error = assertThrows(RuntimeError.class, () -> EmbedTemplate.Text.compile("title", "ab{c}cd", 3));
+		assertTrue(error.getMessage().contains("title"));
+	}
+
+	@Test
+	void missingValueIsAnError() {
+		EmbedTemplate.Text text = EmbedTemplate.Text.compile("title", "Hello {name}", 100);
+		assertThrows(RuntimeError.class, () -> text.render(Map.of()));
+	}
+
+	@Test
+	void templateWithoutPlaceholdersIsBuiltOnce() {
+		EmbedTemplate template = new EmbedTemplate("Title", "Description", 0x5865F2, List.of(), null);
+		assertEquals(List.of(), template.getPlaceholders());
+		MessageEmbed embed = template.render(Map.of());
+		assertSame(embed, template.render(Map.of("unused", "value")));
+		assertEquals("Title", embed.getTitle());
+	}
+
+	@Test
+	void placeholdersAreCollectedInOrderOnce() {
+		EmbedTemplate template = new EmbedTemplate(
+			"{title}",
+			"{user} said {message}",
+			null,
+			List.of(new EmbedTemplate.FieldData("{user}", "{count}", true)),
+			null
+		);
+		assertEquals(List.of("title", "user", "message", "count"), template.getPlaceholders());
+		MessageEmbed embed = template.render(Map.of("title", "Quote", "user", "Sensei", "message", "hi", "count", "3"));
+		assertEquals("Quote", embed.getTitle());
+		assertEquals("Sensei said hi", embed.getDescription());
+		assertEquals("Sensei", embed.getFields().get(0).getName());
+		assertEquals("3", embed.getFields().get(0).getValue());
+	}
+}
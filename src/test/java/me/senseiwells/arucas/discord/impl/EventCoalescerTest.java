@@ -0,0 +1,186 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.discord.fixtures.Fixtures;
+import me.senseiwells.arucas.discord.fixtures.Stubs;
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.ChannelType;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+import net.dv8tion.jda.api.events.GenericEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Windows only close when a test runs the scheduled close itself, so nothing here depends on timing
+class EventCoalescerTest {
+	private static final long WINDOW = 500;
+
+	private JDA jda;
+	private User user;
+	private Guild guild;
+	private List<Runnable> closes;
+	private int cancelled;
+	private List<EventCoalescer.Coalesced> flushed;
+	private ScheduledExecutorService scheduler;
+
+	@BeforeEach
+	void createScheduler() {
+		this.jda = Fixtures.createJda();
+		this.user = Fixtures.createUser(this.jda);
+		this.guild = Fixtures.createServer(this.jda, this.user);
+		this.closes = new ArrayList<>();
+		this.cancelled = 0;
+		this.flushed = new ArrayList<>();
+		this.scheduler = Stubs.stub(ScheduledExecutorService.class, Map.of(
+			"schedule", (Stubs.Answer) (proxy, args) -> {
+				assertEquals(WINDOW, args[1]);
+				this.closes.add((Runnable) args[0]);
+				return Stubs.stub(ScheduledFuture.class, Map.of(
+					"cancel", (Stubs.Answer) (future, cancelArgs) -> {
+						this.cancelled++;
+						return true;
+					}
+				));
+			}
+		));
+	}
+
+	@Test
+	void windowMustBeInRange() {
+		assertThrows(RuntimeError.class, () -> new EventCoalescer(EventKey.CHANNEL, 0, false));
+		assertThrows(RuntimeError.class, () -> new EventCoalescer(EventKey.CHANNEL, EventCoalescer.MAX_WINDOW + 1, false));
+		assertNotNull(new EventCoalescer(EventKey.CHANNEL, EventCoalescer.MAX_WINDOW, false));
+	}
+
+	@Test
+	void closingTheWindowHandsOnTheLatestEvent() {
+		EventCoalescer coalescer = new EventCoalescer(EventKey.CHANNEL, WINDOW, false);
+		List<GenericEvent> events = this.offer(coalescer, 1, 3);
+		assertEquals(1, this.closes.size());
+		assertEquals(List.of(), this.flushed);
+
+		this.closes.get(0).run();
+		assertEquals(1, this.flushed.size());
+		assertEquals(List.of(events.get(2)), this.flushed.get(0).events());
+		assertSame(events.get(2), this.flushed.get(0).latest());
+		assertEquals(3, this.flushed.get(0).received());
+	}
+
+	@Test
+	void batchesKeepEveryEventInOrder() {
+		EventCoalescer coalescer = new EventCoalescer(EventKey.CHANNEL, WINDOW, true);
+		List<GenericEvent> events = this.offer(coalescer, 1, 3);
+		this.closes.get(0).run();
+		assertEquals(1, this.flushed.size());
+		assertEquals(events, this.flushed.get(0).events());
+		assertEquals(3, this.flushed.get(0).received());
+	}
+
+	@Test
+	void eachKeyHasItsOwnWindow() {
+		EventCoalescer coalescer = new EventCoalescer(EventKey.CHANNEL, WINDOW, false);
+		GenericEvent first = this.offer(coalescer, 1, 1).get(0);
+		GenericEvent second = this.offer(coalescer, 2, 1).get(0);
+		assertEquals(2, this.closes.size());
+
+		this.closes.get(1).run();
+		assertEquals(1, this.flushed.size());
+		assertSame(second, this.flushed.get(0).latest());
+		this.closes.get(0).run();
+		assertEquals(2, this.flushed.size());
+		assertSame(first, this.flushed.get(1).latest());
+	}
+
+	@Test
+	void eventsAfterTheCloseOpenANewWindow() {
+		EventCoalescer coalescer = new EventCoalescer(EventKey.CHANNEL, WINDOW, true);
+		this.offer(coalescer, 1, 2);
+		this.closes.get(0).run();
+		GenericEvent late = this.offer(coalescer, 1, 1).get(0);
+		assertEquals(2, this.closes.size());
+
+		this.closes.get(1).run();
+		assertEquals(2, this.flushed.size());
+		assertEquals(List.of(late), this.flushed.get(1).events());
+		assertEquals(1, this.flushed.get(1).received());
+	}
+
+	@Test
+	void fullBatchesAreHandedOnEarly() {
+		EventCoalescer coalescer = new EventCoalescer(EventKey.CHANNEL, WINDOW, true);
+		List<GenericEvent> events = this.offer(coalescer, 1, EventCoalescer.MAX_BATCH);
+		assertEquals(1, this.flushed.size());
+		assertEquals(events, this.flushed.get(0).events());
+		assertEquals(EventCoalescer.MAX_BATCH, this.flushed.get(0).received());
+		assertEquals(1, this.cancelled);
+
+		// A close that was already due when the batch filled must not hand it on again
+		this.closes.get(0).run();
+		assertEquals(1, this.flushed.size());
+
+		GenericEvent next = this.offer(coalescer, 1, 1).get(0);
+		assertEquals(2, this.closes.size());
+		this.closes.get(1).run();
+		assertEquals(List.of(next), this.flushed.get(1).events());
+	}
+
+	@Test
+	void latestOnlyWindowsAreNeverFull() {
+		EventCoalescer coalescer = new EventCoalescer(EventKey.CHANNEL, WINDOW, false);
+		this.offer(coalescer, 1, EventCoalescer.MAX_BATCH * 2);
+		assertEquals(List.of(), this.flushed);
+		assertEquals(0, this.cancelled);
+
+		this.closes.get(0).run();
+		assertEquals(1, this.flushed.size());
+		assertEquals(EventCoalescer.MAX_BATCH * 2, this.flushed.get(0).received());
+	}
+
+	@Test
+	void shutdownSchedulerDropsTheEvent() {
+		EventCoalescer coalescer = new EventCoalescer(EventKey.CHANNEL, WINDOW, false);
+		ScheduledExecutorService shutdown = Stubs.stub(ScheduledExecutorService.class, Map.of(
+			"schedule", (Stubs.Answer) (proxy, args) -> {
+				throw new RejectedExecutionException();
+			}
+		));
+		coalescer.offer(shutdown, this.event(1), this.flushed::add);
+		assertEquals(List.of(), this.flushed);
+
+		// The rejected window wasn't kept, so the next event still opens one
+		this.offer(coalescer, 1, 1);
+		assertEquals(1, this.closes.size());
+	}
+
+	private List<GenericEvent> offer(EventCoalescer coalescer, long channel, int count) {
+		List<GenericEvent> events = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			GenericEvent event = this.event(channel);
+			events.add(event);
+			coalescer.offer(this.scheduler, event, this.flushed::add);
+		}
+		return events;
+	}
+
+	private GenericEvent event(long channelId) {
+		TextChannel channel = Stubs.stub(TextChannel.class, Map.of(
+			"getIdLong", channelId,
+			"getName", "general",
+			"getType", ChannelType.TEXT,
+			"getGuild", this.guild,
+			"getJDA", this.jda
+		), MessageChannelUnion.class);
+		return Fixtures.createMessageEvent(this.jda, Fixtures.createMessage(this.jda, channel, this.user, "hello"));
+	}
+}
@@ -0,0 +1,120 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.discord.fixtures.Fixtures;
+import me.senseiwells.arucas.discord.fixtures.Stubs;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.events.GenericEvent;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventFilterTest {
+	private static JDA jda;
+	private static User user;
+	private static User bot;
+	private static TextChannel channel;
+
+	@BeforeAll
+	static void createServer() {
+		jda = Fixtures.createJda();
+		user = Fixtures.createUser(jda);
+		bot = Stubs.stub(User.class, Map.of(
+			"getIdLong", Fixtures.USER_ID + 1,
+			"getName", "Arucas",
+			"isBot", true,
+			"getJDA", jda
+		));
+		Guild guild = Fixtures.createServer(jda, user);
+		channel = Fixtures.createChannel(jda, guild);
+	}
+
+	@Test
+	void emptyFilterMatchesEverything() {
+		EventFilter filter = new EventFilter(null, null, null, null, null, null);
+		assertTrue(filter.test(message(user, "hello")));
+		assertTrue(filter.test(slashCommand()));
+	}
+
+	@Test
+	void filtersByServer() {
+		assertTrue(new EventFilter(List.of(1L, Fixtures.SERVER_ID), null, null, null, null, null).test(message(user, "hello")));
+		assertFalse(new EventFilter(List.of(1L), null, null, null, null, null).test(message(user, "hello")));
+		assertFalse(new EventFilter(List.of(), null, null, null, null, null).test(message(user, "hello")));
+		assertTrue(new EventFilter(List.of(Fixtures.SERVER_ID), null, null, null, null, null).test(slashCommand()));
+	}
+
+	@Test
+	void filtersByChannel() {
+		assertTrue(new EventFilter(null, List.of(Fixtures.CHANNEL_ID, 1L), null, null, null, null).test(message(user, "hello")));
+		assertFalse(new EventFilter(null, List.of(1L), null, null, null, null).test(message(user, "hello")));
+	}
+
+	@Test
+	void filtersByBot() {
+		EventFilter bots = new EventFilter(null, null, true, null, null, null);
+		EventFilter users = new EventFilter(null, null, false, null, null, null);
+		assertTrue(bots.test(message(bot, "hello")));
+		assertFalse(bots.test(message(user, "hello")));
+		assertTrue(users.test(message(user, "hello")));
+		assertFalse(users.test(message(bot, "hello")));
+		assertTrue(users.test(slashCommand()));
+	}
+
+	@Test
+	void filtersByPrefix() {
+		EventFilter filter = new EventFilter(null, null, null, "!", null, null);
+		assertTrue(filter.test(message(user, "!ping")));
+		assertFalse(filter.test(message(user, "ping!")));
+		assertFalse(filter.test(message(user, "")));
+	}
+
+	@Test
+	void patternFindsAnywhereInTheContent() {
+		EventFilter filter = new EventFilter(null, null, null, null, Pattern.compile("\\d+"), null);
+		assertTrue(filter.test(message(user, "roll 20")));
+		assertFalse(filter.test(message(user, "roll")));
+
+		EventFilter both = new EventFilter(null, null, null, "!", Pattern.compile("\\d+"), null);
+		assertTrue(both.test(message(user, "!roll 20")));
+		assertFalse(both.test(message(user, "roll 20")));
+		assertFalse(both.test(message(user, "!roll")));
+	}
+
+	@Test
+	void filtersByAttachments() {
+		// Fixture messages never have attachments
+		assertTrue(new EventFilter(null, null, null, null, null, false).test(message(user, "hello")));
+		assertFalse(new EventFilter(null, null, null, null, null, true).test(message(user, "hello")));
+	}
+
+	@Test
+	void contentConditionsNeverMatchEventsWithoutAMessage() {
+		assertFalse(new EventFilter(null, null, null, "", null, null).test(slashCommand()));
+		assertFalse(new EventFilter(null, null, null, null, Pattern.compile(""), null).test(slashCommand()));
+		assertFalse(new EventFilter(null, null, null, null, null, false).test(slashCommand()));
+	}
+
+	@Test
+	void everyConditionMustMatch() {
+		EventFilter filter = new EventFilter(List.of(Fixtures.SERVER_ID), List.of(Fixtures.CHANNEL_ID), false, "!", null, null);
+		assertTrue(filter.test(message(user, "!ping")));
+		assertFalse(filter.test(message(bot, "!ping")));
+		assertFalse(filter.test(message(user, "ping")));
+	}
+
+	private static GenericEvent message(User author, String content) {
+		return Fixtures.createMessageEvent(jda, Fixtures.createMessage(jda, channel, author, content));
+	}
+
+	private static GenericEvent slashCommand() {
+		return Fixtures.createSlashEvent(jda, channel, user, "ping", List.of());
+	}
+}
@@ -0,0 +1,163 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.discord.impl.HandlerExecutor.OverflowPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every test has one worker held on a latch, so the queue fills in a known order
+class HandlerExecutorTest {
+	private HandlerExecutor executor;
+	private CountDownLatch release;
+	private List<String> ran;
+
+	@BeforeEach
+	void createExecutor() {
+		this.executor = new HandlerExecutor();
+		this.release = new CountDownLatch(1);
+		this.ran = new CopyOnWriteArrayList<>();
+	}
+
+	@AfterEach
+	void shutdownExecutor() {
+		this.release.countDown();
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void blockWaitsForRoom() throws InterruptedException {
+		this.occupy(OverflowPolicy.BLOCK);
+		CountDownLatch done = new CountDownLatch(2);
+		assertTrue(this.executor.execute(new Batch("first", 1, done)));
+
+		AtomicBoolean accepted = new AtomicBoolean();
+		Thread submitter = new Thread(() -> accepted.set(this.executor.execute(new Batch("second", 1, done))));
+		submitter.start();
+		awaitWaiting(submitter);
+		assertEquals(List.of(), this.ran);
+
+		this.release.countDown();
+		submitter.join();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue(accepted.get());
+		assertEquals(List.of("first", "second"), this.ran);
+		assertEquals(0, this.executor.getDropped());
+		assertEquals(0, this.executor.getRejected());
+	}
+
+	@Test
+	void dropOldestCountsEveryEventInTheDroppedTask() throws InterruptedException {
+		this.occupy(OverflowPolicy.DROP_OLDEST);
+		CountDownLatch done = new CountDownLatch(1);
+		assertTrue(this.executor.execute(new Batch("oldest", 3, done)));
+		assertTrue(this.executor.execute(new Batch("newest", 2, done)));
+		assertEquals(3, this.executor.getDropped());
+
+		this.release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("newest"), this.ran);
+		assertEquals(0, this.executor.getRejected());
+	}
+
+	@Test
+	void dropNewestKeepsTheQueuedTask() throws InterruptedException {
+		this.occupy(OverflowPolicy.DROP_NEWEST);
+		CountDownLatch done = new CountDownLatch(1);
+		assertTrue(this.executor.execute(new Batch("oldest", 3, done)));
+		assertFalse(this.executor.execute(new Batch("newest", 2, done)));
+		assertEquals(2, this.executor.getDropped());
+
+		this.release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("oldest"), this.ran);
+		assertEquals(0, this.executor.getRejected());
+	}
+
+	@Test
+	void rejectCountsSeparatelyFromDrops() throws InterruptedException {
+		this.occupy(OverflowPolicy.REJECT);
+		CountDownLatch done = new CountDownLatch(1);
+		assertTrue(this.executor.execute(new Batch("oldest", 3, done)));
+		assertFalse(this.executor.execute(new Batch("newest", 2, done)));
+		assertFalse(this.executor.execute(() -> this.ran.add("plain")));
+		assertEquals(3, this.executor.getRejected());
+
+		this.release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("oldest"), this.ran);
+		assertEquals(0, this.executor.getDropped());
+	}
+
+	@Test
+	void shutdownRejectsNewTasks() {
+		this.executor.shutdown();
+		assertFalse(this.executor.execute(new Batch("late", 4, new CountDownLatch(1))));
+		assertEquals(4, this.executor.getRejected());
+		assertEquals(List.of(), this.ran);
+	}
+
+	@Test
+	void reconfiguringKeepsQueuedTasks() throws InterruptedException {
+		this.occupy(OverflowPolicy.REJECT);
+		CountDownLatch done = new CountDownLatch(2);
+		assertTrue(this.executor.execute(new Batch("queued", 1, done)));
+
+		this.executor.configure(1, 1, OverflowPolicy.REJECT);
+		assertTrue(this.executor.execute(new Batch("reconfigured", 1, done)));
+		this.release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue(this.ran.containsAll(List.of("queued", "reconfigured")));
+	}
+
+	// The worker starts with this task rather than queueing it, so the queue stays empty
+	private void occupy(OverflowPolicy policy) {
+		this.executor.configure(1, 1, policy);
+		assertTrue(this.executor.execute(() -> {
+			try {
+				this.release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+	}
+
+	private static void awaitWaiting(Thread thread) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (thread.getState() != Thread.State.WAITING) {
+			assertTrue(System.nanoTime() < deadline, "Thread never started waiting");
+			Thread.sleep(1);
+		}
+	}
+
+	// Stands in for a task that carries several events, like a sequenced lane
+	private class Batch implements HandlerExecutor.Droppable {
+		private final String name;
+		private final long size;
+		private final CountDownLatch done;
+
+		private Batch(String name, long size, CountDownLatch done) {
+			this.name = name;
+			this.size = size;
+			this.done = done;
+		}
+
+		@Override
+		public void run() {
+			HandlerExecutorTest.this.ran.add(this.name);
+			this.done.countDown();
+		}
+
+		@Override
+		public long onDropped() {
+			return this.size;
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.discord.impl.HandlerExecutor.OverflowPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedSequencerTest {
+	private static final int KEYS = 4;
+	private static final int TASKS = 250;
+
+	private HandlerExecutor executor;
+	private KeyedSequencer sequencer;
+	private CountDownLatch release;
+	private List<String> ran;
+
+	@BeforeEach
+	void createSequencer() {
+		this.executor = new HandlerExecutor();
+		this.sequencer = new KeyedSequencer();
+		this.release = new CountDownLatch(1);
+		this.ran = new CopyOnWriteArrayList<>();
+	}
+
+	@AfterEach
+	void shutdownExecutor() {
+		this.release.countDown();
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void tasksForAKeyRunInOrderOneAtATime() throws InterruptedException {
+		this.executor.configure(KEYS, KEYS, OverflowPolicy.BLOCK);
+		Map<Long, List<Integer>> order = new ConcurrentHashMap<>();
+		Map<Long, AtomicInteger> running = new ConcurrentHashMap<>();
+		AtomicBoolean overlapped = new AtomicBoolean();
+		CountDownLatch done = new CountDownLatch(KEYS * TASKS);
+		for (int i = 0; i < TASKS; i++) {
+			for (long key = 1; key <= KEYS; key++) {
+				int index = i;
+				List<Integer> keyOrder = order.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>());
+				AtomicInteger keyRunning = running.computeIfAbsent(key, k -> new AtomicInteger());
+				assertTrue(this.sequencer.execute(this.executor, key, () -> {
+					if (keyRunning.incrementAndGet() > 1) {
+						overlapped.set(true);
+					}
+					keyOrder.add(index);
+					keyRunning.decrementAndGet();
+					done.countDown();
+				}));
+			}
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertFalse(overlapped.get());
+
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < TASKS; i++) {
+			expected.add(i);
+		}
+		for (long key = 1; key <= KEYS; key++) {
+			assertEquals(expected, order.get(key), "Key " + key);
+		}
+	}
+
+	@Test
+	void aBusyKeyDoesNotHoldUpOthers() throws InterruptedException {
+		this.executor.configure(2, 10, OverflowPolicy.BLOCK);
+		CountDownLatch started = this.occupy(1);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		CountDownLatch done = new CountDownLatch(1);
+		assertTrue(this.sequencer.execute(this.executor, 1, this.record("behind", new CountDownLatch(1))));
+		assertTrue(this.sequencer.execute(this.executor, 2, this.record("other", done)));
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("other"), this.ran);
+		assertEquals(2, this.sequencer.getActiveKeys());
+	}
+
+	@Test
+	void blockWaitsForRoomInTheLane() throws InterruptedException {
+		CountDownLatch done = this.fillLane(OverflowPolicy.BLOCK, 3);
+		AtomicBoolean accepted = new AtomicBoolean();
+		Thread submitter = new Thread(() -> accepted.set(this.sequencer.execute(this.executor, 1, this.record("c", done))));
+		submitter.start();
+		awaitWaiting(submitter);
+		assertEquals(List.of(), this.ran);
+
+		this.release.countDown();
+		submitter.join();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue(accepted.get());
+		assertEquals(List.of("a", "b", "c"), this.ran);
+		assertEquals(0, this.executor.getDropped());
+		assertEquals(0, this.executor.getRejected());
+	}
+
+	@Test
+	void dropOldestDropsTheHeadOfTheLane() throws InterruptedException {
+		CountDownLatch done = this.fillLane(OverflowPolicy.DROP_OLDEST, 2);
+		assertTrue(this.sequencer.execute(this.executor, 1, this.record("c", done)));
+		assertEquals(1, this.executor.getDropped());
+
+		this.release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("b", "c"), this.ran);
+	}
+
+	@Test
+	void dropNewestKeepsTheLane() throws InterruptedException {
+		CountDownLatch done = this.fillLane(OverflowPolicy.DROP_NEWEST, 2);
+		assertFalse(this.sequencer.execute(this.executor, 1, this.record("c", done)));
+		assertEquals(1, this.executor.getDropped());
+
+		this.release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("a", "b"), this.ran);
+		assertEquals(0, this.executor.getRejected());
+	}
+
+	@Test
+	void rejectKeepsTheLane() throws InterruptedException {
+		CountDownLatch done = this.fillLane(OverflowPolicy.REJECT, 2);
+		assertFalse(this.sequencer.execute(this.executor, 1, this.record("c", done)));
+		assertEquals(1, this.executor.getRejected());
+
+		this.release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("a", "b"), this.ran);
+		assertEquals(0, this.executor.getDropped());
+	}
+
+	@Test
+	void droppedLanesCountEveryPendingTask() throws InterruptedException {
+		this.executor.configure(1, 2, OverflowPolicy.DROP_OLDEST);
+		assertTrue(this.executor.execute(this::await));
+
+		CountDownLatch done = new CountDownLatch(2);
+		// Key 1's lane holds two tasks and is the oldest in the handler queue
+		assertTrue(this.sequencer.execute(this.executor, 1, this.record("a", done)));
+		assertTrue(this.sequencer.execute(this.executor, 1, this.record("b", done)));
+		assertTrue(this.sequencer.execute(this.executor, 2, this.record("c", done)));
+		assertTrue(this.sequencer.execute(this.executor, 3, this.record("d", done)));
+		assertEquals(2, this.executor.getDropped());
+		assertEquals(2, this.sequencer.getActiveKeys());
+
+		this.release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("c", "d"), this.ran);
+	}
+
+	// Key 1's lane is running a task held on the latch with "a" and "b" filling it behind,
+	// the returned latch counts down as each recorded task runs
+	private CountDownLatch fillLane(OverflowPolicy policy, int runs) throws InterruptedException {
+		this.executor.configure(1, 2, policy);
+		CountDownLatch started = this.occupy(1);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		CountDownLatch done = new CountDownLatch(runs);
+		assertTrue(this.sequencer.execute(this.executor, 1, this.record("a", done)));
+		assertTrue(this.sequencer.execute(this.executor, 1, this.record("b", done)));
+		return done;
+	}
+
+	private CountDownLatch occupy(long key) {
+		CountDownLatch started = new CountDownLatch(1);
+		assertTrue(this.sequencer.execute(this.executor, key, () -> {
+			started.countDown();
+			this.await();
+		}));
+		return started;
+	}
+
+	private void await() {
+		try {
+			this.release.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private Runnable record(String name, CountDownLatch done) {
+		return () -> {
+			this.ran.add(name);
+			done.countDown();
+		};
+	}
+
+	private static void awaitWaiting(Thread thread) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (thread.getState() != Thread.State.WAITING) {
+			assertTrue(System.nanoTime() < deadline, "Thread never started waiting");
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.discord.fixtures.Fixtures;
+import me.senseiwells.arucas.discord.fixtures.Stubs;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageReaction;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.ChannelType;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+import net.dv8tion.jda.api.entities.emoji.Emoji;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.message.MessageDeleteEvent;
+import net.dv8tion.jda.api.events.message.react.MessageReactionAddEvent;
+import net.dv8tion.jda.api.events.message.react.MessageReactionRemoveAllEvent;
+import net.dv8tion.jda.api.requests.RestAction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageCacheTest {
+	private static final int REACTIONS = 50;
+
+	private JDA jda;
+	private User user;
+	private TextChannel channel;
+	private Message message;
+	private AtomicInteger fetches;
+	private DiscordBot bot;
+
+	@BeforeEach
+	void createBot() {
+		this.jda = Fixtures.createJda();
+		this.user = Fixtures.createUser(this.jda);
+		Guild guild = Fixtures.createServer(this.jda, this.user);
+		this.fetches = new AtomicInteger();
+		this.channel = Stubs.stub(TextChannel.class, Map.of(
+			"getIdLong", Fixtures.CHANNEL_ID,
+			"getName", "general",
+			"getType", ChannelType.TEXT,
+			"getGuild", guild,
+			"getJDA", this.jda,
+			"retrieveMessageById", (Stubs.Answer) (proxy, args) -> this.fetch()
+		), MessageChannelUnion.class);
+		this.message = Fixtures.createMessage(this.jda, this.channel, this.user, "React to vote");
+		this.bot = new DiscordBot(this.jda, Fixtures.createInterpreter());
+	}
+
+	@AfterEach
+	void shutdownBot() {
+		this.bot.shutdown();
+	}
+
+	@Test
+	void reactionsFetchTheMessageAtMostOnce() {
+		for (int i = 0; i < REACTIONS; i++) {
+			GenericEvent event = this.reaction(i + 1);
+			this.bot.onEvent(event);
+			assertSame(this.message, new DiscordEvent(event).getMessage());
+		}
+		assertEquals(1, this.fetches.get());
+	}
+
+	@Test
+	void receivedMessagesAreNeverFetched() {
+		this.bot.onEvent(Fixtures.createMessageEvent(this.jda, this.message));
+		for (int i = 0; i < REACTIONS; i++) {
+			GenericEvent event = this.reaction(i + 1);
+			this.bot.onEvent(event);
+			assertSame(this.message, new DiscordEvent(event).getMessage());
+		}
+		this.bot.onEvent(new MessageReactionRemoveAllEvent(this.jda, 0, Fixtures.MESSAGE_ID, this.channel));
+		assertSame(this.message, new DiscordEvent(this.reaction(1)).getMessage());
+		assertEquals(0, this.fetches.get());
+	}
+
+	@Test
+	void deletedMessagesAreEvicted() {
+		this.bot.onEvent(Fixtures.createMessageEvent(this.jda, this.message));
+		assertSame(this.message, this.bot.getMessageCache().getIfPresent(Fixtures.MESSAGE_ID));
+		this.bot.onEvent(new MessageDeleteEvent(this.jda, 0, Fixtures.MESSAGE_ID, this.channel));
+		assertNull(this.bot.getMessageCache().getIfPresent(Fixtures.MESSAGE_ID));
+	}
+
+	private GenericEvent reaction(int count) {
+		MessageReaction reaction = new MessageReaction(this.channel, Emoji.fromFormatted("👍"), Fixtures.MESSAGE_ID, false, count);
+		return new MessageReactionAddEvent(this.jda, 0, this.user, null, reaction, Fixtures.USER_ID);
+	}
+
+	private RestAction<Message> fetch() {
+		this.fetches.incrementAndGet();
+		@SuppressWarnings("unchecked")
+		RestAction<Message> action = Stubs.stub(RestAction.class, Map.of(
+			"submit", (Stubs.Answer) (proxy, args) -> CompletableFuture.completedFuture(this.message),
+			"getJDA", this.jda
+		));
+		return action;
+	}
+}
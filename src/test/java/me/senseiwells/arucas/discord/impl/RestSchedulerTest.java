@@ -0,0 +1,79 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.discord.fixtures.Stubs;
+import net.dv8tion.jda.api.requests.RestAction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestSchedulerTest {
+	private RestScheduler scheduler;
+	private List<CompletableFuture<Object>> sent;
+
+	@BeforeEach
+	void createScheduler() {
+		this.scheduler = new RestScheduler(new DiscordMetrics());
+		this.sent = new ArrayList<>();
+	}
+
+	@Test
+	void differentChannelsDoNotShareABucket() {
+		for (int channel = 1; channel <= 8; channel++) {
+			this.scheduler.submit(RestScheduler.Lane.INTERACTIVE, "sendMessage", channel, this.action());
+		}
+		assertEquals(8, this.sent.size());
+		assertEquals(0, this.scheduler.getWaiting());
+	}
+
+	@Test
+	void oneChannelTakesAQuarterOfTheLane() {
+		for (int i = 0; i < 8; i++) {
+			this.scheduler.submit(RestScheduler.Lane.INTERACTIVE, "sendMessage", 1, this.action());
+		}
+		// The interactive lane has 16 slots
+		assertEquals(4, this.sent.size());
+		assertEquals(4, this.scheduler.getWaiting());
+
+		// Another channel isn't held up by the busy one
+		this.scheduler.submit(RestScheduler.Lane.INTERACTIVE, "sendMessage", 2, this.action());
+		assertEquals(5, this.sent.size());
+
+		this.sent.get(0).complete(null);
+		assertEquals(6, this.sent.size());
+		assertEquals(3, this.scheduler.getWaiting());
+	}
+
+	@Test
+	void bucketsAreFreedWhenRequestsFinish() {
+		this.scheduler.setConcurrency(RestScheduler.Lane.BULK, 2);
+		CompletableFuture<Object> first = this.scheduler.submit(RestScheduler.Lane.BULK, "deleteMessageById", 1, this.action());
+		CompletableFuture<Object> second = this.scheduler.submit(RestScheduler.Lane.BULK, "deleteMessageById", 1, this.action());
+		assertEquals(1, this.sent.size());
+		this.sent.get(0).complete("done");
+		assertEquals("done", first.join());
+		assertEquals(2, this.sent.size());
+		this.sent.get(1).completeExceptionally(new IllegalStateException());
+		assertTrue(second.isCompletedExceptionally());
+		assertEquals(0, this.scheduler.getRunning());
+		assertEquals(0, this.scheduler.getWaiting());
+	}
+
+	// Each action only counts as sent once the scheduler submits it
+	private RestAction<Object> action() {
+		@SuppressWarnings("unchecked")
+		RestAction<Object> action = Stubs.stub(RestAction.class, Map.of(
+			"submit", (Stubs.Answer) (proxy, args) -> {
+				CompletableFuture<Object> future = new CompletableFuture<>();
+				this.sent.add(future);
+				return future;
+			}
+		));
+		return action;
+	}
+}
@@ -0,0 +1,149 @@
+package me.senseiwells.arucas.discord.impl;
+
+import me.senseiwells.arucas.core.Interpreter;
+import me.senseiwells.arucas.discord.DiscordUtils.LocatedFunction;
+import me.senseiwells.arucas.discord.fixtures.Fixtures;
+import me.senseiwells.arucas.exceptions.RuntimeError;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextCommandTrieTest {
+	private static LocatedFunction ping;
+	private static LocatedFunction pingAll;
+	private static LocatedFunction say;
+
+	private TextCommandTrie trie;
+
+	@BeforeAll
+	static void createFunctions() {
+		Interpreter interpreter = Fixtures.createInterpreter();
+		ping = new LocatedFunction(interpreter, Fixtures.createFunction("ping", 2));
+		pingAll = new LocatedFunction(interpreter, Fixtures.createFunction("pingAll", 2));
+		say = new LocatedFunction(interpreter, Fixtures.createFunction("say", 2));
+	}
+
+	@BeforeEach
+	void createTrie() {
+		this.trie = new TextCommandTrie();
+		this.trie.register("!", "ping", ping);
+		this.trie.register("!", "pingall", pingAll);
+		this.trie.register("!", "say", say);
+	}
+
+	@Test
+	void matchesCommandWithoutArguments() {
+		TextCommandTrie.Match match = this.trie.match("!ping");
+		assertNotNull(match);
+		assertSame(ping, match.function());
+		assertEquals("!ping", match.command());
+		assertEquals(List.of(), match.arguments());
+	}
+
+	@Test
+	void longestCommandWins() {
+		TextCommandTrie.Match match = this.trie.match("!pingall now");
+		assertNotNull(match);
+		assertSame(pingAll, match.function());
+		assertEquals("!pingall", match.command());
+		assertEquals(List.of("now"), match.arguments());
+
+		match = this.trie.match("!ping all");
+		assertNotNull(match);
+		assertSame(ping, match.function());
+		assertEquals(List.of("all"), match.arguments());
+	}
+
+	@Test
+	void shorterCommandFollowedByTextDoesNotMatch() {
+		assertNull(this.trie.match("!pingx"));
+		assertNull(this.trie.match("!pingal"));
+		assertNull(this.trie.match("!pingallx"));
+	}
+
+	@Test
+	void unknownContentDoesNotMatch() {
+		assertNull(this.trie.match(""));
+		assertNull(this.trie.match("!"));
+		assertNull(this.trie.match("?ping"));
+		assertNull(this.trie.match("hello"));
+	}
+
+	@Test
+	void leadingWhitespaceDoesNotMatch() {
+		assertNull(this.trie.match(" !ping"));
+		assertNull(this.trie.match("\t!ping"));
+	}
+
+	@Test
+	void splitsArgumentsOnWhitespace() {
+		TextCommandTrie.Match match = this.trie.match("!say   hello \t world  ");
+		assertNotNull(match);
+		assertEquals(List.of("hello", "world"), match.arguments());
+
+		match = this.trie.match("!say\nhello");
+		assertNotNull(match);
+		assertSame(say, match.function());
+		assertEquals(List.of("hello"), match.arguments());
+	}
+
+	@Test
+	void quotesKeepWordsTogether() {
+		TextCommandTrie.Match match = this.trie.match("!say \"hello world\" again");
+		assertNotNull(match);
+		assertEquals(List.of("hello world", "again"), match.arguments());
+
+		match = this.trie.match("!say a\"b c\"d");
+		assertNotNull(match);
+		assertEquals(List.of("ab cd"), match.arguments());
+	}
+
+	@Test
+	void emptyQuotesAreAnEmptyArgument() {
+		TextCommandTrie.Match match = this.trie.match("!say \"\" b");
+		assertNotNull(match);
+		assertEquals(List.of("", "b"), match.arguments());
+
+		match = this.trie.match("!say \"\"");
+		assertNotNull(match);
+		assertEquals(List.of(""), match.arguments());
+	}
+
+	@Test
+	void unterminatedQuoteTakesTheRestOfTheMessage() {
+		TextCommandTrie.Match match = this.trie.match("!say a \"hello  world");
+		assertNotNull(match);
+		assertEquals(List.of("a", "hello  world"), match.arguments());
+
+		match = this.trie.match("!say \"");
+		assertNotNull(match);
+		assertEquals(List.of(""), match.arguments());
+	}
+
+	@Test
+	void removedCommandsNoLongerMatch() {
+		assertTrue(this.trie.remove("!", "pingall"));
+		assertFalse(this.trie.remove("!", "pingall"));
+
+		TextCommandTrie.Match match = this.trie.match("!ping");
+		assertNotNull(match);
+		assertSame(ping, match.function());
+		assertNull(this.trie.match("!pingall"));
+
+		assertTrue(this.trie.remove("!", "ping"));
+		assertTrue(this.trie.remove("!", "say"));
+		assertTrue(this.trie.isEmpty());
+		assertNull(this.trie.match("!ping"));
+	}
+
+	@Test
+	void rejectsWhitespaceAndEmptyNames() {
+		assertThrows(RuntimeError.class, () -> this.trie.register("!", "", ping));
+		assertThrows(RuntimeError.class, () -> this.trie.register("!", "two words", ping));
+		assertThrows(RuntimeError.class, () -> this.trie.register("! ", "ping", ping));
+	}
+}